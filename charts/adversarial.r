@@ -0,0 +1,12 @@
+source("../common.r")
+
+# add, contains and remove with adversarial key families. Sets that failed are listed in failures.csv and have no bar
+
+data = jmhCSV("adversarial.csv")
+data$Error[is.na(data$Error)] = 0
+g = jmhBarChart(data, "Benchmark", "", "", "time", "Adversarial keys")
+g = g + facet_grid(op + as.numeric(size) ~ family, scales="free_y")
+
+if (!rstudio) png("adversarial.png", 1536, 1536)
+print(g)
+if (!rstudio) dev.off()
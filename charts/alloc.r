@@ -0,0 +1,31 @@
+
+source("../common.r")
+
+# bytes allocated per operation by the measured code (AllocationProfiler, from the -alloc runs) and GC time (GC profiler), next
+# to the time charts
+
+allocCharts = function (name, title) {
+	for (metric in c("alloc.norm", "gc.time")) {
+		data = jmhCSV(paste(name, if (metric == "alloc.norm") "-alloc" else "", ".csv", sep=""), metric)
+		if (nrow(data) == 0) next
+
+		data = data[,grep("^(Benchmark|Score|Error|size)$", colnames(data))] # keep only these columns
+		data$Error[is.na(data$Error)] = 0
+
+		label = if (metric == "gc.time") "GC ms" else "bytes/op"
+		g1 = jmhBarChart(subset(data, size == "100"), "Benchmark", "size", "", label, paste(title, "100"))
+		g2 = jmhBarChart(subset(data, size == "256"), "Benchmark", "size", "", label, paste(title, "256"))
+		g3 = jmhBarChart(subset(data, size == "1000"), "Benchmark", "size", "", label, paste(title, "1,000"))
+		g4 = jmhBarChart(subset(data, size == "10000"), "Benchmark", "size", "", label, paste(title, "10,000"))
+		g5 = jmhBarChart(subset(data, size == "100000"), "Benchmark", "size", "", label, paste(title, "100,000"))
+		g6 = jmhBarChart(subset(data, size == "1000000"), "Benchmark", "size", "", label, paste(title, "1,000,000"))
+
+		if (!rstudio) png(paste(name, "-", if (metric == "gc.time") "gc" else "alloc", ".png", sep=""), 1536, 1024)
+		grid.arrange(g1, g2, g3, g4, g5, g6)
+		if (!rstudio) dev.off()
+	}
+}
+
+allocCharts("add", "Add allocation")
+allocCharts("contains", "Contains allocation")
+allocCharts("remove", "Remove allocation")
@@ -0,0 +1,18 @@
+
+source("../common.r")
+
+# contains time by hit percentage for MerrySet with and without the Bloom filter, the break-even is where the lines cross
+
+data = jmhCSV("bloom.csv")
+data = data[,grep("^(Benchmark|Score|Error|size|hitPercent)$", colnames(data))] # keep only these columns
+data$Error[is.na(data$Error)] = 0
+
+g = ggplot(data=data, aes(x=hitPercent, y=Score, color=Benchmark, ymin=Score - Error, ymax=Score + Error))
+g = g + geom_line(size=1) + geom_point(size=3) + geom_errorbar(width=1)
+g = g + facet_wrap(~ as.numeric(size), scales="free_y") + labs(x="hit %", y="time")
+if (!rstudio) {
+	g = g + ggtitle("Bloom filter contains") + theme(text=element_text(size=16))
+	png("bloom.png", 1536, 1024)
+}
+print(g)
+if (!rstudio) dev.off()
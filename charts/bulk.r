@@ -0,0 +1,25 @@
+source("../common.r")
+
+data = jmhCSV("bulk.csv")
+
+data = data[,grep("^(Benchmark|Score|Error|size|fill|op)$", colnames(data))] # keep only these columns
+data$Error[is.na(data$Error)] = 0
+
+data$size = sub("(.*)", "\\1", data$size) # convert size numbers to strings for better colors
+data$fill = paste(data$fill, "%", sep="")
+
+for (operation in c("iterate", "copy", "equals", "hashCode", "toString", "clear")) {
+	d = subset(data, op == operation)
+	title = paste("Bulk", operation)
+	g1 = jmhBarChart(subset(d, size == "100"), "fill", "fill", "", "", paste(title, "100"))
+	g2 = jmhBarChart(subset(d, size == "256"), "fill", "fill", "", "", paste(title, "256"))
+	g3 = jmhBarChart(subset(d, size == "1000"), "fill", "fill", "", "", paste(title, "1,000"))
+	g4 = jmhBarChart(subset(d, size == "10000"), "fill", "fill", "", "", paste(title, "10,000"))
+	g5 = jmhBarChart(subset(d, size == "100000"), "fill", "fill", "", "", paste(title, "100,000"))
+	g6 = jmhBarChart(subset(d, size == "1000000"), "fill", "fill", "", "", paste(title, "1,000,000"))
+	g6 = g6 + theme(legend.position="right")
+
+	if (!rstudio) png(paste("bulk-", operation, ".png", sep=""), 1536, 1024)
+	grid.arrange(g1, g2, g3, g4, g5, g6)
+	if (!rstudio) dev.off()
+}
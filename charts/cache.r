@@ -0,0 +1,17 @@
+source("../common.r")
+
+# MerryCache (CLOCK) vs LinkedHashMap LRU under Zipf access: time, hit rate and bytes allocated, by capacity and exponent
+
+metrics = c(time="", hitrate="cache.hitRate", alloc="alloc.norm")
+yLabels = c(time="time", hitrate="hit %", alloc="bytes/op")
+files = c(time="cache.csv", hitrate="cache.csv", alloc="cache-alloc.csv") # allocation is measured in a separate -alloc run
+for (name in names(metrics)) {
+	data = jmhCSV(files[[name]], metrics[[name]])
+	data$Error[is.na(data$Error)] = 0
+	g = jmhBarChart(data, "Benchmark", "", "", yLabels[[name]], paste("Cache", name))
+	g = g + facet_grid(capacity ~ exponent, scales="free_y")
+
+	if (!rstudio) png(paste("cache-", name, ".png", sep=""), 1536, 1024)
+	print(g)
+	if (!rstudio) dev.off()
+}
@@ -12,8 +12,18 @@ loadLibrary = function (name) {
 loadLibrary("ggplot2")
 loadLibrary("gridExtra")
 
-jmhCSV = function (path) {
-	data = read.csv(path, sep=",", header=T)
+# metric selects a secondary result, eg "gc.alloc.rate.norm" from the GC profiler, otherwise only primary results are kept
+jmhCSV = function (path, metric="") {
+	data = read.csv(path, sep=",", header=T, encoding="UTF-8")
+
+	# secondary results are named like "Benchmark:·gc.alloc.rate.norm"
+	secondary = grepl(":", data$Benchmark)
+	if (metric == "") {
+		data = data[!secondary,]
+	} else {
+		data = data[secondary & grepl(paste(":\\W*", gsub(".", "\\.", metric, fixed=TRUE), "$", sep=""), data$Benchmark),]
+		data$Benchmark = sub(":.*$", "", data$Benchmark)
+	}
 
 	# delete all before last dot in benchmark names
 	data$Benchmark = sub("^.+\\.", "", data$Benchmark)
@@ -0,0 +1,12 @@
+source("../common.r")
+
+# Nested pairwise iteration and removal with the cursor methods vs allocated or reset iterators
+
+data = jmhCSV("cursor.csv")
+data$Error[is.na(data$Error)] = 0
+g = jmhBarChart(data, "Benchmark", "", "", "time", "Cursor iteration")
+g = g + facet_grid(op ~ as.numeric(size), scales="free_y")
+
+if (!rstudio) png("cursor.png", 1536, 1024)
+print(g)
+if (!rstudio) dev.off()
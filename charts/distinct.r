@@ -0,0 +1,14 @@
+source("../common.r")
+
+# Distinct words in the bible repeated to a multi-GB gzip input, DistinctCounter pipeline by workers vs a single thread
+
+data = jmhCSV("distinct.csv")
+data$Error[is.na(data$Error)] = 0
+data$workers[is.na(data$workers)] = 1
+data$workers = factor(data$workers)
+g = jmhBarChart(data, "workers", "workers", "", "time", "Distinct count")
+g = g + theme(legend.position = "right")
+
+if (!rstudio) png("distinct.png", 1024, 768)
+print(g)
+if (!rstudio) dev.off()
@@ -0,0 +1,51 @@
+
+source("../common.r")
+
+# retained bytes per key from Footprint, keys excluded, and the memory/speed tradeoff against contains.csv
+
+data = jmhCSV("footprint.csv")
+data = data[,grep("^(Benchmark|Score|Error|size|loadFactor|presize)$", colnames(data))] # keep only these columns
+data$Error = 0
+data$size = sub("(.*)", "\\1", data$size) # convert size numbers to strings for better colors
+
+# each implementation at its default load factor, grown from the default capacity like the other benchmarks
+defaults = subset(data, presize == "false" & ((Benchmark == "HashSet" & loadFactor == 0.75) | (Benchmark != "HashSet" & loadFactor == 0.8)))
+
+g1 = jmhBarChart(subset(defaults, size == "100"), "Benchmark", "size", "", "bytes/key", "Footprint 100")
+g2 = jmhBarChart(subset(defaults, size == "256"), "Benchmark", "size", "", "bytes/key", "Footprint 256")
+g3 = jmhBarChart(subset(defaults, size == "1000"), "Benchmark", "size", "", "bytes/key", "Footprint 1,000")
+g4 = jmhBarChart(subset(defaults, size == "10000"), "Benchmark", "size", "", "bytes/key", "Footprint 10,000")
+g5 = jmhBarChart(subset(defaults, size == "100000"), "Benchmark", "size", "", "bytes/key", "Footprint 100,000")
+g6 = jmhBarChart(subset(defaults, size == "1000000"), "Benchmark", "size", "", "bytes/key", "Footprint 1,000,000")
+
+if (!rstudio) png("footprint.png", 1536, 1024)
+grid.arrange(g1, g2, g3, g4, g5, g6)
+if (!rstudio) dev.off()
+
+# bytes/key by load factor, the steps are where the power of two table size changes
+g = ggplot(data=data, aes(x=loadFactor, y=Score, color=Benchmark, linetype=presize)) + geom_line() + geom_point()
+g = g + facet_wrap(~ as.numeric(size), scales="free_y") + labs(x="load factor", y="bytes/key")
+if (!rstudio) {
+	g = g + ggtitle("Footprint by load factor") + theme(text=element_text(size=16))
+	png("footprint-loadfactor.png", 1536, 1024)
+}
+print(g)
+if (!rstudio) dev.off()
+
+# memory/speed tradeoff: contains time against bytes/key, one point per implementation and size
+if (file.exists("contains.csv")) {
+	speed = jmhCSV("contains.csv")
+	speed = speed[,grep("^(Benchmark|Score|size)$", colnames(speed))]
+	colnames(speed)[colnames(speed) == "Score"] = "Time"
+	speed$size = sub("(.*)", "\\1", speed$size)
+	tradeoff = merge(defaults, speed, by=c("Benchmark", "size"))
+
+	g = ggplot(data=tradeoff, aes(x=Score, y=Time, color=Benchmark)) + geom_point(size=4)
+	g = g + facet_wrap(~ as.numeric(size), scales="free") + labs(x="bytes/key", y="contains time")
+	if (!rstudio) {
+		g = g + ggtitle("Memory/speed tradeoff") + theme(text=element_text(size=16))
+		png("footprint-tradeoff.png", 1536, 1024)
+	}
+	print(g)
+	if (!rstudio) dev.off()
+}
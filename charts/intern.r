@@ -0,0 +1,16 @@
+
+source("../common.r")
+
+# interning every word in the bible, time and bytes allocated
+
+time = jmhCSV("intern.csv")
+time$Error[is.na(time$Error)] = 0
+g1 = jmhBarChart(time, "Benchmark", "", "", "time", "Intern")
+
+alloc = jmhCSV("intern-alloc.csv", "alloc.norm") # measured in a separate -alloc run
+alloc$Error[is.na(alloc$Error)] = 0
+g2 = jmhBarChart(alloc, "Benchmark", "", "", "bytes/op", "Intern allocation")
+
+if (!rstudio) png("intern.png", 1536, 1024)
+grid.arrange(g1, g2)
+if (!rstudio) dev.off()
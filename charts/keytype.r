@@ -0,0 +1,22 @@
+
+source("../common.r")
+
+data = jmhCSV("keytype.csv")
+
+data = data[,grep("^(Benchmark|Score|Error|size|keyType|op)$", colnames(data))] # keep only these columns
+
+data = subset(data, size == "100000")
+
+for (o in c("add", "contains", "remove")) {
+	d = subset(data, op == o)
+	g1 = jmhBarChart(subset(d, keyType == "string"), "Benchmark", "", "", "", paste(o, "string"))
+	g2 = jmhBarChart(subset(d, keyType == "integer"), "Benchmark", "", "", "", paste(o, "Integer"))
+	g3 = jmhBarChart(subset(d, keyType == "longs"), "Benchmark", "", "", "", paste(o, "Long"))
+	g4 = jmhBarChart(subset(d, keyType == "composite"), "Benchmark", "", "", "", paste(o, "composite"))
+	g5 = jmhBarChart(subset(d, keyType == "longString"), "Benchmark", "", "", "", paste(o, "long String"))
+	g6 = jmhBarChart(subset(d, keyType == "identity"), "Benchmark", "", "", "", paste(o, "identity"))
+
+	if (!rstudio) png(paste("keytype-", o, ".png", sep=""), 1536, 1024)
+	grid.arrange(g1, g2, g3, g4, g5, g6)
+	if (!rstudio) dev.off()
+}
@@ -0,0 +1,12 @@
+source("../common.r")
+
+# add (including growing) and contains for very large sets, MerrySet vs SegmentedMerrySet
+
+data = jmhCSV("large.csv")
+data$Error[is.na(data$Error)] = 0
+g = jmhBarChart(data, "Benchmark", "", "", "time", "Large sets")
+g = g + facet_grid(op ~ as.numeric(size), scales="free_y")
+
+if (!rstudio) png("large.png", 1536, 1024)
+print(g)
+if (!rstudio) dev.off()
@@ -0,0 +1,28 @@
+
+source("../common.r")
+
+# percentiles of single operations from LatencyProfiler, which records every invocation of LatencyBenchmark
+
+percentiles = c("p50", "p90", "p99", "p99.9", "max")
+
+data = NULL
+for (percentile in percentiles) {
+	rows = jmhCSV("latency.csv", paste("latency.", percentile, sep=""))
+	if (nrow(rows) == 0) next
+	rows$percentile = percentile
+	data = rbind(data, rows)
+}
+data = data[,grep("^(Benchmark|Score|size|op|percentile)$", colnames(data))] # keep only these columns
+data$percentile = factor(data$percentile, levels=percentiles)
+
+for (operation in c("add", "contains", "remove")) {
+	g = ggplot(data=subset(data, op == operation), aes(x=percentile, y=Score, color=Benchmark, group=Benchmark))
+	g = g + geom_line(size=1) + geom_point(size=3) + scale_y_log10()
+	g = g + facet_wrap(~ as.numeric(size)) + labs(x="percentile", y="ns (log scale)")
+	if (!rstudio) {
+		g = g + ggtitle(paste("Latency", operation)) + theme(text=element_text(size=16))
+		png(paste("latency-", operation, ".png", sep=""), 1536, 1024)
+	}
+	print(g)
+	if (!rstudio) dev.off()
+}
@@ -0,0 +1,38 @@
+
+source("../common.r")
+
+# LoadFactorBenchmark time by load factor for each op, with footprint.csv bytes/key as the memory side of the tradeoff
+
+data = jmhCSV("loadfactor.csv")
+data = data[,grep("^(Benchmark|Score|Error|size|loadFactor|presize|op)$", colnames(data))] # keep only these columns
+data$Error[is.na(data$Error)] = 0
+
+for (operation in c("add", "hit", "miss", "iterate")) {
+	g = ggplot(data=subset(data, op == operation), aes(x=loadFactor, y=Score, color=Benchmark, linetype=presize))
+	g = g + geom_line() + geom_point() + geom_errorbar(aes(ymin=Score - Error, ymax=Score + Error), width=.01)
+	g = g + facet_wrap(~ as.numeric(size), scales="free_y") + labs(x="load factor", y="time")
+	if (!rstudio) {
+		g = g + ggtitle(paste("Load factor", operation)) + theme(text=element_text(size=16))
+		png(paste("loadfactor-", operation, ".png", sep=""), 1536, 1024)
+	}
+	print(g)
+	if (!rstudio) dev.off()
+}
+
+# time against bytes/key for hits, each point is a load factor
+if (file.exists("footprint.csv")) {
+	memory = jmhCSV("footprint.csv")
+	memory = memory[,grep("^(Benchmark|Score|size|loadFactor|presize)$", colnames(memory))]
+	colnames(memory)[colnames(memory) == "Score"] = "Bytes"
+	tradeoff = merge(subset(data, op == "hit"), memory, by=c("Benchmark", "size", "loadFactor", "presize"))
+
+	g = ggplot(data=tradeoff, aes(x=Bytes, y=Score, color=Benchmark, shape=presize, label=loadFactor))
+	g = g + geom_point(size=3) + geom_text(vjust=-1, size=3)
+	g = g + facet_wrap(~ as.numeric(size), scales="free") + labs(x="bytes/key", y="hit time")
+	if (!rstudio) {
+		g = g + ggtitle("Load factor memory/speed tradeoff") + theme(text=element_text(size=16))
+		png("loadfactor-tradeoff.png", 1536, 1024)
+	}
+	print(g)
+	if (!rstudio) dev.off()
+}
@@ -0,0 +1,15 @@
+source("../common.r")
+
+# contains time for each JVM configuration of MatrixRunner, faceted by JDK and GC
+
+data = jmhCSV("matrix.csv")
+data$Error[is.na(data$Error)] = 0
+
+for (s in unique(data$size)) {
+	g = jmhBarChart(subset(data, size == s), "Benchmark", "", "", "time", paste("JVM matrix contains", s), "config")
+	g = g + facet_grid(jdk ~ gc, scales="free_x") + theme(legend.position="right", axis.text.x=element_text(angle=45, hjust=1))
+
+	if (!rstudio) png(paste("matrix-", s, ".png", sep=""), 1536, 1024)
+	print(g)
+	if (!rstudio) dev.off()
+}
@@ -0,0 +1,17 @@
+source("../common.r")
+
+# add, contains and a full GC for large sets of long keys, on heap (MerryLongSet) vs off heap (direct and mapped)
+
+data = jmhCSV("offheap.csv")
+data$Error[is.na(data$Error)] = 0
+g1 = jmhBarChart(data, "Benchmark", "", "", "time", "Off heap long sets")
+g1 = g1 + facet_grid(op ~ as.numeric(size), scales="free_y")
+
+gc = jmhCSV("offheap.csv", "gc.time")
+gc$Error[is.na(gc$Error)] = 0
+g2 = jmhBarChart(gc, "Benchmark", "", "", "GC time (ms)", "GC time")
+g2 = g2 + facet_grid(op ~ as.numeric(size), scales="free_y")
+
+if (!rstudio) png("offheap.png", 1536, 1536)
+grid.arrange(g1, g2)
+if (!rstudio) dev.off()
@@ -0,0 +1,32 @@
+
+source("../common.r")
+
+# MerrySet time and probe length for each Placement, by key family
+
+time = jmhCSV("placement.csv")
+probes = jmhCSV("placement.csv", "probe.avg")
+
+for (operation in c("add", "contains", "remove")) {
+	for (s in c("1000", "10000")) {
+		data = subset(time, op == operation & size == s)
+		data$Error[is.na(data$Error)] = 0
+		g = jmhBarChart(data, "placement", "placement", "", "time", paste("Placement", operation, s), "placement")
+		g = g + facet_wrap(~ keyFamily, scales="free_y")
+
+		if (!rstudio) png(paste("placement-", operation, "-", s, ".png", sep=""), 1536, 1024)
+		print(g)
+		if (!rstudio) dev.off()
+	}
+}
+
+# probe length of the filled set, the same for every op, so only contains is shown
+data = subset(probes, op == "contains")
+g = ggplot(data=data, aes(x=placement, y=Score, fill=placement)) + geom_bar(stat="identity", color="black")
+g = g + scale_y_log10() + facet_grid(size ~ keyFamily) + labs(x="", y="average probe length (log scale)")
+g = g + theme(legend.position = "none", axis.text.x=element_text(angle=45, hjust=1))
+if (!rstudio) {
+	g = g + ggtitle("Placement probe length") + theme(text=element_text(size=16))
+	png("placement-probes.png", 1536, 1024)
+}
+print(g)
+if (!rstudio) dev.off()
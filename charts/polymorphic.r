@@ -0,0 +1,14 @@
+source("../common.r")
+
+# contains with 1 to 4 key classes (String, Integer, Long, CompositeKey) and 1 or 3 MerrySet classes overriding place()
+
+data = jmhCSV("polymorphic.csv")
+data$Error[is.na(data$Error)] = 0
+data$keyTypes = factor(data$keyTypes)
+data$placeTypes = paste(data$placeTypes, "place types")
+g = jmhBarChart(data, "keyTypes", "key types", "", "time", "Megamorphic call sites", x="keyTypes")
+g = g + facet_grid(. ~ placeTypes)
+
+if (!rstudio) png("polymorphic.png", 1024, 768)
+print(g)
+if (!rstudio) dev.off()
@@ -0,0 +1,15 @@
+source("../common.r")
+
+# time and bytes allocated for one MerrySet table doubling, rehashing into a new table vs moving keys in place
+
+time = jmhCSV("resize.csv")
+time$Error[is.na(time$Error)] = 0
+g1 = jmhBarChart(time, "Benchmark", "", "", "time", "Resize") + facet_wrap(~ as.numeric(size), scales="free_y")
+
+alloc = jmhCSV("resize-alloc.csv", "alloc.norm") # measured in a separate -alloc run
+alloc$Error[is.na(alloc$Error)] = 0
+g2 = jmhBarChart(alloc, "Benchmark", "", "", "bytes", "Resize allocation") + facet_wrap(~ as.numeric(size), scales="free_y")
+
+if (!rstudio) png("resize.png", 1536, 1024)
+grid.arrange(g1, g2)
+if (!rstudio) dev.off()
@@ -0,0 +1,15 @@
+source("../common.r")
+
+# saving and restoring a MerrySet: layout serializer vs Java serialization vs rebuilding from a list of keys
+
+data = jmhCSV("serialize.csv")
+data$Error[is.na(data$Error)] = 0
+
+for (operation in c("save", "restore")) {
+	g = jmhBarChart(subset(data, op == operation), "Benchmark", "", "", "time", paste("Serialize", operation))
+	g = g + facet_wrap(~ as.numeric(size), scales="free_y")
+
+	if (!rstudio) png(paste("serialize-", operation, ".png", sep=""), 1536, 1024)
+	print(g)
+	if (!rstudio) dev.off()
+}
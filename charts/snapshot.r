@@ -0,0 +1,15 @@
+source("../common.r")
+
+# readers and a writer sharing sets published by copying: SnapshotMerrySet, CopyOnWriteArraySet and a fully copied MerrySet
+
+for (operation in c("Contains", "Update")) {
+	data = jmhCSV("snapshot.csv", paste("[A-Za-z]*", operation, sep="")) # group methods, eg "Snapshot:SnapshotContains"
+	data$Error[is.na(data$Error)] = 0
+	label = if (operation == "Contains") "ns per read" else "ns per update"
+	g = jmhBarChart(data, "Benchmark", "", "", label, paste("Snapshot", tolower(operation), "while the other runs"))
+	g = g + facet_wrap(~ as.numeric(size), scales="free_y")
+
+	if (!rstudio) png(paste("snapshot-", tolower(operation), ".png", sep=""), 1536, 1024)
+	print(g)
+	if (!rstudio) dev.off()
+}
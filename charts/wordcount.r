@@ -0,0 +1,16 @@
+
+source("../common.r")
+
+# counting every word in the bible, time and bytes allocated per count
+
+time = jmhCSV("wordcount.csv")
+time$Error[is.na(time$Error)] = 0
+g1 = jmhBarChart(time, "Benchmark", "", "", "time", "Word count")
+
+alloc = jmhCSV("wordcount-alloc.csv", "alloc.norm") # measured in a separate -alloc run
+alloc$Error[is.na(alloc$Error)] = 0
+g2 = jmhBarChart(alloc, "Benchmark", "", "", "bytes/op", "Word count allocation")
+
+if (!rstudio) png("wordcount.png", 1536, 1024)
+grid.arrange(g1, g2)
+if (!rstudio) dev.off()
@@ -0,0 +1,10 @@
+#!/usr/bin/env bash
+set -e
+SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" >/dev/null && pwd )"
+cd $SCRIPT_DIR
+
+# compares benchmark results against a baseline, exits with 1 if there are regressions
+# usage: compare.sh [-threshold percent] [-confidence level] [-all] baseline.json current.json
+# JSON results (-rf json) include raw samples for a t-test, CSV results only have the score and error
+
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.RegressionGate "$@"
@@ -12,13 +12,47 @@ cd $SCRIPT_DIR
 args="-f 1 -wm BULK_INDI -wi 6 -wbs 200 -i 20 -t 10 -w 6s -r 6s -bs 400 -rf csv -rff"
 #args="-f 4 -wi 1000 -i 20 -t 11 -w 6s -r 6s -bs 500 -rf csv -rff"
 #args="-f 2 -wi 2500 -i 400 -t 11 -w 16s -r 16s -bs 1000 -rf csv -rff"
+latencyArgs="-f 1 -wi 6 -i 20 -w 6s -r 6s -rf csv -rff" # no -bs, a batch would be timed as one operation
+largeArgs="-f 1 -wi 1 -i 5 -bs 1 -rf csv -rff" # one thread and one set at a time, each invocation adds up to 100M keys
+singleArgs="-f 1 -wi 6 -i 20 -bs 20 -rf csv -rff" # one thread, for benchmarks whose per thread state is too large to have 10 of
+groupArgs="-f 1 -wi 6 -i 20 -w 6s -r 6s -rf csv -rff" # no -t, each @Group sets its own reader and writer threads
+allocArgs="-alloc -f 1 -wm BULK_INDI -wi 6 -wbs 200 -i 5 -bs 400 -rf csv -rff" # bytes allocated only, reading the counters skews the times
 jmh="$JAVA_HOME/bin/java -cp target/classes;lib/* com.esotericsoftware.mapbench.Benchmarks $args"
 
 set -x
 
+rm -f charts/results/failures.csv # Failures appends, so start each run with an empty file.
+
 $jmh charts/results/remove.csv RemoveBenchmark
 $jmh charts/results/add.csv AddBenchmark
 $jmh charts/results/contains.csv ContainsBenchmark
+$jmh charts/results/bulk.csv BulkOpsBenchmark
+$jmh charts/results/cursor.csv CursorBenchmark
+$jmh charts/results/adversarial.csv AdversarialBenchmark
+$jmh charts/results/polymorphic.csv PolymorphicKeyBenchmark
+$jmh charts/results/loadfactor.csv LoadFactorBenchmark
+$jmh charts/results/placement.csv PlacementBenchmark
+$jmh charts/results/wordcount.csv WordCountBenchmark
+$jmh charts/results/intern.csv InternBenchmark
+$jmh charts/results/cache.csv CacheBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/remove-alloc.csv RemoveBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/add-alloc.csv AddBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/contains-alloc.csv ContainsBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/wordcount-alloc.csv WordCountBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/intern-alloc.csv InternBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $allocArgs charts/results/cache-alloc.csv CacheBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $singleArgs charts/results/keytype.csv KeyTypeBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $singleArgs charts/results/bloom.csv BloomBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $groupArgs charts/results/snapshot.csv SnapshotBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $latencyArgs charts/results/latency.csv LatencyBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Footprint charts/results/footprint.csv
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $largeArgs charts/results/large.csv LargeSetBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $largeArgs charts/results/offheap.csv OffHeapBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $largeArgs charts/results/resize.csv ResizeBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks -alloc $largeArgs charts/results/resize-alloc.csv ResizeBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $largeArgs charts/results/serialize.csv SerializeBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.Benchmarks $largeArgs charts/results/distinct.csv DistinctCountBenchmark
+$JAVA_HOME/bin/java -cp "target/classes;lib/*" com.esotericsoftware.mapbench.MatrixRunner matrix.txt $args charts/results/matrix.csv ContainsBenchmark
 
 cd charts/results
 find ../*.r -not -path ../common.r -type f -exec echo "{}:" \; -exec Rscript  {} \;
@@ -38,24 +38,40 @@ public class AddBenchmark {
 	public void Cuckoo (CuckooState state) {
 		ObjectSet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			set.add(words[i]);
+		AllocationProfiler.stop(allocated);
 	}
 
 	@Benchmark
 	public void HashSet (HashSetState state) {
 		HashSet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			set.add(words[i]);
+		AllocationProfiler.stop(allocated);
 	}
 
 	@Benchmark
 	public void MerrySet (MerrySetState state) {
 		MerrySet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			set.add(words[i]);
+		AllocationProfiler.stop(allocated);
+	}
+
+	@Benchmark
+	public void Hopscotch (HopscotchState state) {
+		HopscotchSet set = state.set;
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = words.length; i < n; i++)
+			set.add(words[i]);
+		AllocationProfiler.stop(allocated);
 	}
 
 	@State(Scope.Thread)
@@ -64,12 +80,17 @@ public class AddBenchmark {
 		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
 
 		public String[] words;
-		public final ObjectSet set = new ObjectSet();
+		public ObjectSet set;
 
 		@Setup(Level.Trial)
 		public void setup () {
 			words = Wordlist.loadWords(size, seed);
 		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			set = new ObjectSet(); // Each invocation in a batch adds to an empty set, so adds and growing are measured.
+		}
 	}
 
 	@State(Scope.Thread)
@@ -78,12 +99,17 @@ public class AddBenchmark {
 		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
 
 		public String[] words;
-		public final HashSet set = new HashSet();
+		public HashSet set;
 
 		@Setup(Level.Trial)
 		public void setup () {
 			words = Wordlist.loadWords(size, seed);
 		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			set = new HashSet(); // Each invocation in a batch adds to an empty set, so adds and growing are measured.
+		}
 	}
 
 	@State(Scope.Thread)
@@ -92,11 +118,35 @@ public class AddBenchmark {
 		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
 
 		public String[] words;
-		public final MerrySet set = new MerrySet();
+		public MerrySet set;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			words = Wordlist.loadWords(size, seed);
+		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			set = new MerrySet(); // Each invocation in a batch adds to an empty set, so adds and growing are measured.
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HopscotchState {
+		@Param({"100", "256", "1000", "10000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+
+		public String[] words;
+		public HopscotchSet set;
 
 		@Setup(Level.Trial)
 		public void setup () {
 			words = Wordlist.loadWords(size, seed);
 		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			set = new HopscotchSet(); // Each invocation in a batch adds to an empty set, so adds and growing are measured.
+		}
 	}
 }
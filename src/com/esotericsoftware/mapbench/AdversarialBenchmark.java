@@ -0,0 +1,248 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+import com.esotericsoftware.mapbench.AdversarialKeys.Family;
+
+/** Add, contains and remove with {@link AdversarialKeys}. Sets that fail, eg the cuckoo set running out of memory with colliding
+ * hashcodes, are recorded with {@link Failures} and the run continues with the next benchmark. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class AdversarialBenchmark {
+	@Benchmark
+	public Object Cuckoo (CuckooState state, Blackhole blackhole) {
+		ObjectSet set = state.set;
+		Object[] keys = state.keys;
+		try {
+			long allocated = AllocationProfiler.start();
+			switch (state.op) {
+			case add:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.add(keys[i]);
+				break;
+			case contains:
+				for (int i = 0, n = keys.length; i < n; i++)
+					blackhole.consume(set.contains(keys[i]));
+				break;
+			case remove:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.remove(keys[i]);
+				break;
+			}
+			AllocationProfiler.stop(allocated);
+		} catch (Throwable ex) {
+			throw state.failed("Cuckoo", ex);
+		}
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object HashSet (HashSetState state, Blackhole blackhole) {
+		HashSet set = state.set;
+		Object[] keys = state.keys;
+		try {
+			long allocated = AllocationProfiler.start();
+			switch (state.op) {
+			case add:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.add(keys[i]);
+				break;
+			case contains:
+				for (int i = 0, n = keys.length; i < n; i++)
+					blackhole.consume(set.contains(keys[i]));
+				break;
+			case remove:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.remove(keys[i]);
+				break;
+			}
+			AllocationProfiler.stop(allocated);
+		} catch (Throwable ex) {
+			throw state.failed("HashSet", ex);
+		}
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		Object[] keys = state.keys;
+		try {
+			long allocated = AllocationProfiler.start();
+			switch (state.op) {
+			case add:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.add(keys[i]);
+				break;
+			case contains:
+				for (int i = 0, n = keys.length; i < n; i++)
+					blackhole.consume(set.contains(keys[i]));
+				break;
+			case remove:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.remove(keys[i]);
+				break;
+			}
+			AllocationProfiler.stop(allocated);
+		} catch (Throwable ex) {
+			throw state.failed("MerrySet", ex);
+		}
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object Hopscotch (HopscotchState state, Blackhole blackhole) {
+		HopscotchSet set = state.set;
+		Object[] keys = state.keys;
+		try {
+			long allocated = AllocationProfiler.start();
+			switch (state.op) {
+			case add:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.add(keys[i]);
+				break;
+			case contains:
+				for (int i = 0, n = keys.length; i < n; i++)
+					blackhole.consume(set.contains(keys[i]));
+				break;
+			case remove:
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.remove(keys[i]);
+				break;
+			}
+			AllocationProfiler.stop(allocated);
+		} catch (Throwable ex) {
+			throw state.failed("Hopscotch", ex);
+		}
+		return blackhole;
+	}
+
+	static public enum Op {
+		add, contains, remove
+	}
+
+	/** Holds the keys and fills the set before each invocation: empty for add, every other key for contains so half are misses,
+	 * and all keys for remove. */
+	@State(Scope.Thread)
+	static public abstract class KeysState {
+		@Param({"collisions", "fibonacci", "highBits", "lowBits", "sequential"}) public Family family;
+		@Param({"100", "1000", "10000"}) public int size; // Collisions are O(n^2) for add, so sizes are kept small.
+		@Param({"add", "contains", "remove"}) public Op op;
+
+		public Object[] keys;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			keys = family.generate(size);
+		}
+
+		@Setup(Level.Invocation)
+		public void fill () {
+			try {
+				clear();
+				if (op == Op.add) return;
+				for (int i = 0, n = keys.length; i < n; i++) {
+					add(keys[i]);
+					if (op == Op.contains) ++i; // Skip adding every other word so half the contains return false.
+				}
+			} catch (Throwable ex) {
+				throw failed(getClass().getSimpleName().replace("State", ""), ex);
+			}
+		}
+
+		abstract void clear ();
+
+		abstract void add (Object key);
+
+		/** Frees the set, records the failure and returns an exception to rethrow so JMH skips the rest of this benchmark. */
+		RuntimeException failed (String benchmark, Throwable ex) {
+			clear();
+			Failures.record(AdversarialBenchmark.class.getSimpleName() + '.' + benchmark,
+				"family=" + family + " size=" + size + " op=" + op, ex);
+			return new RuntimeException(benchmark + " failed: family=" + family + " size=" + size + " op=" + op, ex);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class CuckooState extends KeysState {
+		public ObjectSet set = new ObjectSet();
+
+		void clear () {
+			set = new ObjectSet(); // Clearing may not free the memory when the table grew too large.
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HashSetState extends KeysState {
+		public HashSet set = new HashSet();
+
+		void clear () {
+			set = new HashSet();
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends KeysState {
+		public MerrySet set = new MerrySet();
+
+		void clear () {
+			set = new MerrySet();
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HopscotchState extends KeysState {
+		public HopscotchSet set = new HopscotchSet();
+
+		void clear () {
+			set = new HopscotchSet();
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+/** Generates families of keys that are known to be hard for some hash sets. */
+public class AdversarialKeys {
+	/** The Fibonacci number 196418 (F27). Multiples of it collide heavily with Fibonacci hashing: with 10,000 keys in a table of
+	 * 16,384 slots, the average linear probe is about 4,800 slots. */
+	static public final int FIBONACCI_STRIDE = 196418;
+
+	static public enum Family {
+		/** Strings that all have the same {@link String#hashCode()}, built from blocks of "Aa" and "BB", which have the same
+		 * hashcode. */
+		collisions,
+		/** Integers that are multiples of {@link AdversarialKeys#FIBONACCI_STRIDE}. */
+		fibonacci,
+		/** Integers that differ only in their upper bits. */
+		highBits,
+		/** Strings with a long common prefix and a numeric suffix, so their hashcodes differ only in the low bits. */
+		lowBits,
+		/** Integers 0 to size - 1, like database IDs. */
+		sequential;
+
+		public Object[] generate (int size) {
+			switch (this) {
+			case collisions:
+				return collisions(size);
+			case fibonacci:
+				return multiples(size, FIBONACCI_STRIDE);
+			case highBits:
+				return highBits(size);
+			case lowBits:
+				return lowBits(size);
+			case sequential:
+				return multiples(size, 1);
+			}
+			throw new IllegalStateException(toString());
+		}
+	}
+
+	/** Returns strings which all have the same hashcode. */
+	static public String[] collisions (int size) {
+		if (size < 0) throw new IllegalArgumentException("size must be >= 0: " + size);
+		int blocks = Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+		String[] keys = new String[size];
+		StringBuilder buffer = new StringBuilder(blocks * 2);
+		for (int i = 0; i < size; i++) {
+			buffer.setLength(0);
+			for (int b = 0; b < blocks; b++)
+				buffer.append((i >>> b & 1) == 0 ? "Aa" : "BB");
+			keys[i] = buffer.toString();
+			keys[i].hashCode(); // Precompute hashcode
+		}
+		return keys;
+	}
+
+	/** Returns integers 0, stride, stride * 2, etc. Overflow wraps around. */
+	static public Integer[] multiples (int size, int stride) {
+		if (size < 0) throw new IllegalArgumentException("size must be >= 0: " + size);
+		Integer[] keys = new Integer[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = i * stride;
+		return keys;
+	}
+
+	/** Returns integers that are all 0 except for the fewest upper bits needed to make them unique. */
+	static public Integer[] highBits (int size) {
+		if (size < 0) throw new IllegalArgumentException("size must be >= 0: " + size);
+		int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+		Integer[] keys = new Integer[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = i << 32 - bits;
+		return keys;
+	}
+
+	/** Returns strings with a long common prefix and an incrementing numeric suffix. */
+	static public String[] lowBits (int size) {
+		if (size < 0) throw new IllegalArgumentException("size must be >= 0: " + size);
+		String[] keys = new String[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = "com.esotericsoftware.mapbench.entity#" + i;
+			keys[i].hashCode(); // Precompute hashcode
+		}
+		return keys;
+	}
+}
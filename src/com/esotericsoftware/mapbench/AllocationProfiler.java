@@ -0,0 +1,121 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/** Reports the bytes allocated per operation by only the code between {@link #start()} and {@link #stop(long)}, using the
+ * ThreadMXBean allocated bytes counters. The GC profiler's "gc.alloc.rate.norm" also counts allocation in setup methods, eg
+ * refilling a set before each invocation, so it can't show that a set allocates nothing when removing.
+ * <p>
+ * Benchmarks wrap the measured code:
+ * 
+ * <pre>
+ * long allocated = AllocationProfiler.start();
+ * for (...)
+ * 	set.add(words[i]);
+ * AllocationProfiler.stop(allocated);
+ * </pre>
+ * 
+ * Reading the counters costs time in the measured code, so it is opt-in: {@link Benchmarks} adds this profiler only with -alloc,
+ * which sets the "mapbench.alloc" system property in the forked JVM. Without it start and stop do nothing and are compiled away,
+ * so the times of runs with -alloc should not be compared to those without. Results are named "·alloc.norm". */
+public class AllocationProfiler implements InternalProfiler, ExternalProfiler {
+	static private final boolean enabled = Boolean.getBoolean("mapbench.alloc");
+	static private final com.sun.management.ThreadMXBean threadBean = enabled ? threadBean() : null;
+	static private final LongAdder allocated = new LongAdder();
+
+	/** Returns the number of bytes allocated by the current thread so far, or -1 if not enabled or not supported. */
+	static public long start () {
+		if (threadBean == null) return -1;
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** Adds the bytes allocated by the current thread since {@link #start()}. */
+	static public void stop (long start) {
+		if (start == -1) return;
+		allocated.add(threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start);
+	}
+
+	public Collection<String> addJVMInvokeOptions (BenchmarkParams params) {
+		return Collections.emptyList();
+	}
+
+	public Collection<String> addJVMOptions (BenchmarkParams params) {
+		return Collections.singletonList("-Dmapbench.alloc=true");
+	}
+
+	public void beforeTrial (BenchmarkParams params) {
+	}
+
+	public Collection<? extends Result> afterTrial (BenchmarkResult result, long pid, File stdOut, File stdErr) {
+		return Collections.emptyList();
+	}
+
+	public boolean allowPrintOut () {
+		return true;
+	}
+
+	public boolean allowPrintErr () {
+		return true;
+	}
+
+	public void beforeIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+		allocated.reset();
+	}
+
+	public Collection<? extends Result> afterIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams,
+		IterationResult result) {
+		long ops = result.getMetadata().getAllOps();
+		if (threadBean == null || ops == 0) return Collections.emptyList();
+		return Collections.singletonList(new ScalarResult("·alloc.norm", allocated.sum() / (double)ops, "B/op",
+			AggregationPolicy.AVG));
+	}
+
+	public String getDescription () {
+		return "Bytes allocated per operation by the measured code, excluding setup.";
+	}
+
+	static private com.sun.management.ThreadMXBean threadBean () {
+		try {
+			com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+			if (!threadBean.isThreadAllocatedMemorySupported()) return null;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+			return threadBean;
+		} catch (Throwable ex) { // Not a HotSpot JVM.
+			return null;
+		}
+	}
+}
@@ -20,6 +20,8 @@
 package com.esotericsoftware.mapbench;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.openjdk.jmh.Main;
 
@@ -28,7 +30,17 @@ public class Benchmarks {
 	 * <p>
 	 * Fork 0 can be used for debugging/development, eg: -f 0 -wi 1 -i 1 -t 1 -w 1s -r 1s [benchmarkClassName]
 	 * <p>
-	 * Need JMH to generate classes before running in Eclipse: mvn clean compile */
+	 * Need JMH to generate classes before running in Eclipse: mvn clean compile
+	 * <p>
+	 * The GC profiler is always added so every result has secondary rows for GC count and GC time. Use -nogc to disable it.
+	 * {@link LatencyProfiler}, {@link ProbeProfiler} and {@link CacheProfiler} are always added for benchmarks that record
+	 * latencies, probe lengths or cache hit rates.
+	 * <p>
+	 * Use -alloc to add {@link AllocationProfiler}, which reports the bytes allocated per operation by the measured code. It reads
+	 * the allocation counters in the measured code, so times are only comparable between runs that all use -alloc or none do.
+	 * <p>
+	 * Use -jit to add {@link JitProfiler}, which reports how C2 compiled and inlined the probe loop, eg: -jit -f 1 -wi 5 -i 5
+	 * PolymorphicKeyBenchmark */
 	static public void main (String[] args) throws Exception {
 		// Turn off illegal access log messages.
 		try {
@@ -55,6 +67,38 @@ public class Benchmarks {
 			System.out.println(commandLine);
 			args = commandLine.split(" ");
 		}
-		Main.main(args);
+		Main.main(addProfilers(args));
+	}
+
+	/** Adds the latency, probe length and cache hit rate profilers, the GC profiler unless -nogc is specified, the allocation
+	 * profiler if -alloc is specified and the JIT profiler if -jit is specified. */
+	static String[] addProfilers (String[] args) {
+		ArrayList<String> list = new ArrayList(Arrays.asList(args));
+		if (list.remove("-jit")) {
+			list.add(0, "-prof");
+			list.add(1, JitProfiler.class.getName());
+		}
+		if (list.remove("-alloc")) {
+			list.add(0, "-prof");
+			list.add(1, AllocationProfiler.class.getName());
+		}
+		boolean nogc = list.remove("-nogc");
+		ArrayList<String> profilers = new ArrayList(Arrays.asList(LatencyProfiler.class.getName(), ProbeProfiler.class.getName(),
+			CacheProfiler.class.getName()));
+		boolean gc = false;
+		for (int i = 0, n = list.size() - 1; i < n; i++) {
+			if (!list.get(i).equals("-prof")) continue;
+			gc |= list.get(i + 1).startsWith("gc");
+			profilers.remove(list.get(i + 1));
+		}
+		if (!gc && !nogc) {
+			list.add(0, "-prof");
+			list.add(1, "gc");
+		}
+		for (String profiler : profilers) {
+			list.add(0, "-prof");
+			list.add(1, profiler);
+		}
+		return list.toArray(new String[list.size()]);
 	}
 }
@@ -0,0 +1,115 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Contains for MerrySet and {@link BloomMerrySet} when most lookups miss, to find the hit ratio and size where the Bloom filter
+ * stops paying for itself. The keys are distinct {@link SyntheticCorpus} words, so sizes beyond the word list's vocabulary can be
+ * used, and each invocation does {@link #LOOKUPS} lookups in a random order. The 10M size needs about 2 GB of heap for each
+ * thread, since every thread has its own set, so run it with one thread. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx3g")
+public class BloomBenchmark {
+	static public final int LOOKUPS = 1 << 20;
+
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		String[] lookups = state.lookups;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = lookups.length; i < n; i++)
+			blackhole.consume(set.contains(lookups[i]));
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object Bloom (BloomState state, Blackhole blackhole) {
+		BloomMerrySet set = state.set;
+		String[] lookups = state.lookups;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = lookups.length; i < n; i++)
+			blackhole.consume(set.contains(lookups[i]));
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@State(Scope.Thread)
+	static public abstract class LookupState {
+		@Param({"100000", "1000000", "10000000"}) public int size; // Keys in the set.
+		@Param({"0", "10", "25", "50"}) public int hitPercent;
+
+		public String[] lookups;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			SyntheticCorpus corpus = new SyntheticCorpus(0, SyntheticCorpus.MAX_VOCABULARY, SyntheticCorpus.DEFAULT_EXPONENT);
+			String[] keys = new String[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = corpus.word(i + 1);
+				add(keys[i]);
+			}
+
+			// Hits are random keys from the set, misses are words that were not added. Both have their hashcodes cached.
+			Random random = new Random(1234);
+			lookups = new String[LOOKUPS];
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (random.nextInt(100) < hitPercent)
+					lookups[i] = new String(keys[random.nextInt(size)]);
+				else
+					lookups[i] = corpus.word(size + 1 + i);
+				lookups[i].hashCode();
+			}
+		}
+
+		abstract void add (String key);
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends LookupState {
+		public final MerrySet set = new MerrySet();
+
+		void add (String key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class BloomState extends LookupState {
+		public final BloomMerrySet set = new BloomMerrySet();
+
+		void add (String key) {
+			set.add(key);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A {@link MerrySet} with a blocked Bloom filter in front of lookups, for workloads where most lookups miss. A definite miss
+ * returns after reading one 64 byte block of the filter, without touching the key table or comparing keys. Hits and false
+ * positives do the normal lookup.
+ * <p>
+ * Each key sets one bit in each of the 8 longs of a block chosen by its hashcode, so a lookup reads one block (Java doesn't align
+ * arrays to cache lines, so a block can straddle two). The filter has {@link #BITS_PER_SLOT} bits per table slot, about 10 to 20
+ * bits per key depending on the load, for a false positive rate of roughly 1%. It is rebuilt when the table is resized and after
+ * many removes, since removed keys leave their bits set. Removing with the iterator doesn't count toward a rebuild, which only
+ * increases false positives. */
+public class BloomMerrySet<T> extends MerrySet<T> {
+	static public final int BITS_PER_SLOT = 8;
+
+	static private final int[] salts = {0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b, 0x9efc4947,
+		0x5c6bfb31};
+
+	long[] bloom;
+	int blockMask, removed;
+
+	/** Creates a new set with an initial capacity of 51 and a load factor of 0.8. */
+	public BloomMerrySet () {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new set with a load factor of 0.8.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public BloomMerrySet (int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/** Creates a new set with the specified initial capacity and load factor. This set will hold initialCapacity items before
+	 * growing the backing table.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public BloomMerrySet (int initialCapacity, float loadFactor) {
+		super(initialCapacity, loadFactor);
+		rebuild();
+	}
+
+	/** Creates a new set identical to the specified set. */
+	public BloomMerrySet (MerrySet<? extends T> set) {
+		super(set);
+		rebuild();
+	}
+
+	/** Sizes the filter for the current table and adds every key. */
+	void rebuild () {
+		int blocks = Math.max(1, keyTable.length * BITS_PER_SLOT >>> 9), length = blocks << 3;
+		if (bloom != null && bloom.length == length)
+			Arrays.fill(bloom, 0);
+		else
+			bloom = new long[length];
+		blockMask = blocks - 1;
+		removed = 0;
+		T[] keyTable = this.keyTable;
+		for (int i = 0, n = keyTable.length; i < n; i++)
+			if (keyTable[i] != null) bloomAdd(keyTable[i].hashCode());
+	}
+
+	private void bloomAdd (int hashCode) {
+		long[] bloom = this.bloom;
+		int offset = block(hashCode), h = mix(hashCode);
+		for (int i = 0; i < 8; i++)
+			bloom[offset + i] |= 1L << (h * salts[i] >>> 26);
+	}
+
+	/** Returns false if the key is definitely not in the set. */
+	public boolean mightContain (T key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		int hashCode = key.hashCode();
+		long[] bloom = this.bloom;
+		int offset = block(hashCode), h = mix(hashCode);
+		for (int i = 0; i < 8; i++)
+			if ((bloom[offset + i] & 1L << (h * salts[i] >>> 26)) == 0) return false;
+		return true;
+	}
+
+	/** Returns the index of the first long of the key's block. Uses different bits of the hash than {@link #mix(int)}. */
+	private int block (int hashCode) {
+		return ((int)(hashCode * 0x9E3779B97F4A7C15L >>> 32) & blockMask) << 3;
+	}
+
+	/** The murmur3 32-bit finalizer. */
+	static private int mix (int h) {
+		h = (h ^ h >>> 16) * 0x85ebca6b;
+		h = (h ^ h >>> 13) * 0xc2b2ae35;
+		return h ^ h >>> 16;
+	}
+
+	public boolean add (T key) {
+		int capacity = keyTable.length;
+		if (!super.add(key)) return false;
+		added(key, capacity, size - 1);
+		return true;
+	}
+
+	public T addOrGet (T key) {
+		int capacity = keyTable.length, oldSize = size;
+		T result = super.addOrGet(key);
+		added(key, capacity, oldSize);
+		return result;
+	}
+
+	public T addIfAbsent (T key, Function<? super T, ? extends T> factory) {
+		int capacity = keyTable.length, oldSize = size;
+		T result = super.addIfAbsent(key, factory);
+		added(result, capacity, oldSize);
+		return result;
+	}
+
+	/** Updates the filter if the key was added. */
+	private void added (T key, int capacity, int oldSize) {
+		if (size == oldSize) return;
+		if (keyTable.length != capacity)
+			rebuild();
+		else
+			bloomAdd(key.hashCode());
+	}
+
+	/** Returns true if the key was removed. The filter is rebuilt once the removed keys are more than half the size and a 16th of
+	 * the capacity, so the cost of rebuilding is amortized over the removes. */
+	public boolean remove (T key) {
+		if (!super.remove(key)) return false;
+		if (++removed > size >>> 1 && removed > keyTable.length >>> 4) rebuild();
+		return true;
+	}
+
+	public boolean contains (T key) {
+		return mightContain(key) && super.contains(key);
+	}
+
+	public T get (T key) {
+		return mightContain(key) ? super.get(key) : null;
+	}
+
+	public void clear () {
+		super.clear();
+		Arrays.fill(bloom, 0);
+		removed = 0;
+	}
+
+	public void clear (int maximumCapacity) {
+		super.clear(MathUtils.nextPowerOfTwo(Math.max(1, maximumCapacity)));
+		rebuild();
+	}
+
+	public void shrink (int maximumCapacity) {
+		int capacity = keyTable.length;
+		super.shrink(maximumCapacity);
+		if (keyTable.length != capacity) rebuild();
+	}
+
+	public void ensureCapacity (int additionalCapacity) {
+		int capacity = keyTable.length;
+		super.ensureCapacity(additionalCapacity);
+		if (keyTable.length != capacity) rebuild();
+	}
+
+	/** Returns the fraction of filter bits that are set. With k = 8 bits per key, the false positive rate is about this to the
+	 * 8th power. */
+	public float getBloomFill () {
+		long set = 0;
+		for (long bits : bloom)
+			set += Long.bitCount(bits);
+		return set / (float)(bloom.length * 64L);
+	}
+}
@@ -0,0 +1,229 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+/** Operations on the whole set: iterate, copy (the copy constructor), equals (with an equal set built separately), hashCode,
+ * toString and clear. The set is filled with size words, then words are removed until fill percent remain, so the capacity is
+ * for size words and operations that scan the table get slower relative to the number of keys. Clear refills the set before
+ * each invocation. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class BulkOpsBenchmark {
+	@Benchmark
+	public Object Cuckoo (CuckooState state, Blackhole blackhole) {
+		ObjectSet set = state.set;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		case copy:
+			blackhole.consume(new ObjectSet(set));
+			break;
+		case equals:
+			blackhole.consume(set.equals(state.other));
+			break;
+		case hashCode:
+			blackhole.consume(set.hashCode());
+			break;
+		case toString:
+			blackhole.consume(set.toString());
+			break;
+		case clear:
+			set.clear();
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object HashSet (HashSetState state, Blackhole blackhole) {
+		HashSet set = state.set;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		case copy:
+			blackhole.consume(new HashSet(set));
+			break;
+		case equals:
+			blackhole.consume(set.equals(state.other));
+			break;
+		case hashCode:
+			blackhole.consume(set.hashCode());
+			break;
+		case toString:
+			blackhole.consume(set.toString());
+			break;
+		case clear:
+			set.clear();
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		case copy:
+			blackhole.consume(new MerrySet(set));
+			break;
+		case equals:
+			blackhole.consume(set.equals(state.other));
+			break;
+		case hashCode:
+			blackhole.consume(set.hashCode());
+			break;
+		case toString:
+			blackhole.consume(set.toString());
+			break;
+		case clear:
+			set.clear();
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	static public enum Op {
+		iterate, copy, equals, hashCode, toString, clear
+	}
+
+	@State(Scope.Thread)
+	static public abstract class BulkState {
+		@Param({"100", "256", "1000", "10000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+		@Param({"100", "50", "10"}) public int fill; // Percent of the words left after removing.
+		@Param public Op op;
+
+		public String[] words;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			words = Wordlist.loadWords(size, seed);
+			fill();
+			// The word list has duplicates, so a word after the removed words may have been removed.
+			HashSet<String> removed = new HashSet(Arrays.asList(words).subList(0, removed()));
+			for (int i = removed(), n = words.length; i < n; i++)
+				if (!removed.contains(words[i])) addOther(words[i]);
+		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			if (op == Op.clear) fill();
+		}
+
+		/** Adds all the words, then removes words until fill percent remain. */
+		void fill () {
+			String[] words = this.words;
+			for (int i = 0, n = words.length; i < n; i++)
+				add(words[i]);
+			for (int i = 0, n = removed(); i < n; i++)
+				remove(words[i]);
+		}
+
+		int removed () {
+			return words.length - (int)((long)words.length * fill / 100);
+		}
+
+		abstract void add (String key);
+
+		abstract void remove (String key);
+
+		abstract void addOther (String key);
+	}
+
+	@State(Scope.Thread)
+	static public class CuckooState extends BulkState {
+		public final ObjectSet set = new ObjectSet(), other = new ObjectSet();
+
+		void add (String key) {
+			set.add(key);
+		}
+
+		void remove (String key) {
+			set.remove(key);
+		}
+
+		void addOther (String key) {
+			other.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HashSetState extends BulkState {
+		public final HashSet set = new HashSet(), other = new HashSet();
+
+		void add (String key) {
+			set.add(key);
+		}
+
+		void remove (String key) {
+			set.remove(key);
+		}
+
+		void addOther (String key) {
+			other.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends BulkState {
+		public final MerrySet set = new MerrySet(), other = new MerrySet();
+
+		void add (String key) {
+			set.add(key);
+		}
+
+		void remove (String key) {
+			set.remove(key);
+		}
+
+		void addOther (String key) {
+			other.add(key);
+		}
+	}
+}
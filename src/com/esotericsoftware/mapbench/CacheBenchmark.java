@@ -0,0 +1,112 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** A bounded cache in front of a {@link Zipf} distributed stream of {@link #ACCESSES} keys drawn from {@link #KEYS} distinct
+ * {@link SyntheticCorpus} words, comparing {@link MerryCache} (CLOCK) with a LinkedHashMap LRU. Each access is a get, and a miss
+ * puts the key. Each invocation starts with an empty cache, created before allocation is measured, so the allocation rate is what
+ * the cache allocates per access. {@link CacheProfiler} reports the hit rate. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class CacheBenchmark {
+	static public final int KEYS = 1000000, ACCESSES = 1 << 20;
+
+	@Benchmark
+	public Object MerryCache (CacheState state) {
+		String[] accesses = state.accesses;
+		MerryCache<String, String> cache = new MerryCache(state.capacity);
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = accesses.length; i < n; i++) {
+			String key = accesses[i];
+			if (cache.get(key) == null) cache.put(key, key);
+		}
+		AllocationProfiler.stop(allocated);
+		CacheProfiler.record(cache.getHits(), cache.getMisses());
+		return cache;
+	}
+
+	@Benchmark
+	public Object LinkedHashMap (CacheState state) {
+		String[] accesses = state.accesses;
+		LruCache<String, String> cache = new LruCache(state.capacity);
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = accesses.length; i < n; i++) {
+			String key = accesses[i];
+			if (cache.get(key) == null) {
+				cache.misses++;
+				cache.put(key, key);
+			}
+		}
+		AllocationProfiler.stop(allocated);
+		CacheProfiler.record(accesses.length - cache.misses, cache.misses);
+		return cache;
+	}
+
+	@State(Scope.Thread)
+	static public class CacheState {
+		@Param({"1000", "10000", "100000"}) public int capacity;
+		@Param({"0.8", "1.0", "1.2"}) public double exponent;
+
+		public String[] accesses;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			SyntheticCorpus corpus = new SyntheticCorpus(0);
+			String[] keys = new String[KEYS];
+			for (int i = 0; i < KEYS; i++) {
+				keys[i] = corpus.word(i + 1);
+				keys[i].hashCode();
+			}
+			Zipf zipf = new Zipf(KEYS, exponent);
+			Random random = new Random(1234);
+			accesses = new String[ACCESSES];
+			for (int i = 0; i < ACCESSES; i++)
+				accesses[i] = keys[(int)zipf.next(random) - 1];
+		}
+	}
+
+	/** The usual LRU cache: a LinkedHashMap in access order which removes its eldest entry when over capacity. */
+	static class LruCache<K, V> extends LinkedHashMap<K, V> {
+		final int capacity;
+		long misses;
+
+		public LruCache (int capacity) {
+			super((int)Math.ceil(capacity / 0.75f) + 1, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry (Map.Entry<K, V> eldest) {
+			return size() > capacity;
+		}
+	}
+}
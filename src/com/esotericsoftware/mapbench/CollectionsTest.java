@@ -1,7 +1,23 @@
 
 package com.esotericsoftware.mapbench;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ArrayMap;
@@ -282,6 +298,442 @@ public class CollectionsTest {
 		assertEquals(thirdSet, thirdSet);
 	}
 
+	/** Checks that add, contains and remove work for every family of {@link AdversarialKeys}. */
+	private void testAdversarial (int size, Placement placement) {
+		for (AdversarialKeys.Family family : AdversarialKeys.Family.values()) {
+			System.out.println(MerrySet.class + " " + family + " " + placement);
+			Object[] keys = family.generate(size);
+			MerrySet set = placement.newSet();
+			for (int i = 0; i < size; i++)
+				if (!set.add(keys[i])) throw new GdxRuntimeException("add() failed: " + keys[i]);
+			assertEquals(set.size, size);
+			for (int i = 0; i < size; i += 2)
+				if (!set.remove(keys[i])) throw new GdxRuntimeException("remove() failed: " + keys[i]);
+			for (int i = 0; i < size; i++)
+				if (set.contains(keys[i]) != (i % 2 == 1)) throw new GdxRuntimeException("contains() failed: " + keys[i]);
+			assertEquals(set.size, size / 2);
+		}
+	}
+
+	/** Checks {@link HopscotchSet} against a HashSet with random adds and removes, iterator removal and every family of
+	 * {@link AdversarialKeys}, which overflow into the stash. */
+	private void testHopscotch (int size) {
+		System.out.println(HopscotchSet.class);
+		Random random = new Random(1234);
+		HashSet expected = new HashSet();
+		HopscotchSet set = new HopscotchSet();
+		for (int i = 0; i < size * 20; i++) {
+			Object key = random.nextBoolean() ? (Object)random.nextInt(size) : AdversarialKeys.collisions(64)[random.nextInt(64)];
+			if (random.nextInt(3) == 0) {
+				if (set.remove(key) != expected.remove(key)) throw new GdxRuntimeException("remove() failed: " + key);
+			} else if (set.add(key) != expected.add(key)) throw new GdxRuntimeException("add() failed: " + key);
+			if (set.size != expected.size()) throw new GdxRuntimeException("size failed: " + set.size + " != " + expected.size());
+		}
+		for (Object key : expected)
+			if (!set.contains(key)) throw new GdxRuntimeException("contains() failed: " + key);
+		int count = 0;
+		for (Iterator iter = set.iterator(); iter.hasNext();) {
+			Object key = iter.next();
+			if (!expected.contains(key)) throw new GdxRuntimeException("iterator failed: " + key);
+			if (count++ % 2 == 0) {
+				iter.remove();
+				expected.remove(key);
+			}
+		}
+		assertEquals(set.size, expected.size());
+		for (Object key : expected)
+			if (!set.contains(key)) throw new GdxRuntimeException("iterator remove() failed: " + key);
+
+		for (AdversarialKeys.Family family : AdversarialKeys.Family.values()) {
+			System.out.println(HopscotchSet.class + " " + family);
+			Object[] keys = family.generate(size);
+			set = new HopscotchSet();
+			for (int i = 0; i < size; i++)
+				if (!set.add(keys[i])) throw new GdxRuntimeException("add() failed: " + keys[i]);
+			assertEquals(set.size, size);
+			for (int i = 0; i < size; i += 2)
+				if (!set.remove(keys[i])) throw new GdxRuntimeException("remove() failed: " + keys[i]);
+			for (int i = 0; i < size; i++)
+				if (set.contains(keys[i]) != (i % 2 == 1)) throw new GdxRuntimeException("contains() failed: " + keys[i]);
+			assertEquals(set.size, size / 2);
+		}
+	}
+
+	/** Checks that {@link BloomMerrySet} never rejects a key in the set, through resizes and the rebuilds after removes. */
+	private void testBloom (int size) {
+		System.out.println(BloomMerrySet.class);
+		String[] keys = AdversarialKeys.lowBits(size);
+		BloomMerrySet set = new BloomMerrySet();
+		for (int i = 0; i < size; i++) {
+			if (!set.add(keys[i])) throw new GdxRuntimeException("add() failed: " + keys[i]);
+			if (!set.contains(keys[i >>> 1])) throw new GdxRuntimeException("contains() failed: " + keys[i >>> 1]);
+		}
+		for (int i = 0; i < size; i++) {
+			if (i % 4 != 3 && !set.remove(keys[i])) throw new GdxRuntimeException("remove() failed: " + keys[i]);
+			if (!set.contains(keys[size - 1])) throw new GdxRuntimeException("contains() failed: " + keys[size - 1]);
+		}
+		for (int i = 0; i < size; i++)
+			if (set.contains(keys[i]) != (i % 4 == 3)) throw new GdxRuntimeException("contains() failed: " + keys[i]);
+		assertEquals(set.size, size / 4);
+		int falsePositives = 0;
+		for (Object key : AdversarialKeys.highBits(size))
+			if (set.mightContain(key)) falsePositives++;
+		if (falsePositives > size / 10) throw new GdxRuntimeException("Too many false positives: " + falsePositives);
+	}
+
+	/** Checks that counting the bible with {@link MerryObjectIntMap} gives the same counts as HashMap. */
+	private void testWordCount () {
+		System.out.println(MerryObjectIntMap.class + " word count");
+		HashMap<String, Integer> expected = new HashMap();
+		MerryObjectIntMap<String> map = new MerryObjectIntMap();
+		for (String word : Wordlist.loadBible()) {
+			expected.merge(word, 1, Integer::sum);
+			map.getAndIncrement(word, 0, 1);
+		}
+		assertEquals(map.size, expected.size());
+		for (Entry<String, Integer> entry : expected.entrySet()) {
+			if (map.getOrDefault(entry.getKey(), -1) != entry.getValue())
+				throw new GdxRuntimeException("getAndIncrement() failed: " + entry.getKey());
+		}
+		if (map.putIfAbsent("the", 0) || !map.putIfAbsent("(absent)", 7) || map.getOrDefault("(absent)", 0) != 7)
+			throw new GdxRuntimeException("putIfAbsent() failed");
+	}
+
+	/** Checks that addOrGet and addIfAbsent return the first instance of each word, for MerrySet and {@link BloomMerrySet}. */
+	private void testIntern () {
+		System.out.println(MerrySet.class + " intern");
+		String[] words = Wordlist.loadBible();
+		for (MerrySet<String> set : new MerrySet[] {new MerrySet(), new BloomMerrySet()}) {
+			HashMap<String, String> expected = new HashMap();
+			MerrySet<String> created = new MerrySet();
+			for (int i = 0, n = words.length; i < n; i++) {
+				String word = words[i];
+				String canonical = expected.computeIfAbsent(word, w -> w);
+				String result = (i & 1) == 0 ? set.addOrGet(word) : set.addIfAbsent(word, w -> {
+					if (!created.add(w)) throw new GdxRuntimeException("addIfAbsent() called the factory twice: " + w);
+					return w;
+				});
+				if (result != canonical) throw new GdxRuntimeException("addOrGet() failed: " + word);
+			}
+			assertEquals(set.size, expected.size());
+			for (String word : expected.keySet())
+				if (set.get(word) != expected.get(word)) throw new GdxRuntimeException("get() failed: " + word);
+		}
+	}
+
+	/** Checks {@link MerryCache} under a Zipf access stream: the size stays bounded, every entry stays reachable after evictions
+	 * and the counters match, and a key that is used between sweeps is never evicted. */
+	private void testCache () {
+		System.out.println(MerryCache.class);
+		MerryCache<Integer, Integer> cache = new MerryCache(500);
+		Zipf zipf = new Zipf(10000, 1);
+		Random random = new Random(1234);
+		long hits = 0;
+		for (int i = 0; i < 100000; i++) {
+			Integer key = (int)zipf.next(random) * 31; // Multiples of 31 make clusters.
+			Integer value = cache.get(key);
+			if (value != null) {
+				if (!value.equals(key)) throw new GdxRuntimeException("get() failed: " + key);
+				hits++;
+			} else
+				cache.put(key, key);
+			cache.get(-1); // Always used, so always has its reference bit set during a sweep.
+			if (i == 0) cache.put(-1, -1);
+			if (cache.size > cache.getCapacity()) throw new GdxRuntimeException("Cache is over capacity: " + cache.size);
+		}
+		assertEquals(cache.size, cache.getCapacity());
+		assertEquals(cache.getHits(), hits + 99999);
+		assertEquals(cache.getMisses(), 100000 - hits + 1);
+		if (cache.getEvictions() == 0) throw new GdxRuntimeException("No evictions.");
+		if (!cache.containsKey(-1)) throw new GdxRuntimeException("Referenced key was evicted.");
+		int count = 0;
+		for (Object key : ((MerryCache)cache).keyTable) {
+			if (key == null) continue;
+			if (!cache.containsKey((Integer)key)) throw new GdxRuntimeException("Entry is unreachable: " + key);
+			count++;
+		}
+		assertEquals(count, cache.size);
+		if (cache.remove(-1) != -1 || cache.containsKey(-1)) throw new GdxRuntimeException("remove() failed");
+		cache.clear();
+		assertEquals(cache.size, 0);
+	}
+
+	/** Checks {@link SnapshotMerrySet} against HashSet with random adds and removes, and that earlier snapshots never change. */
+	private void testSnapshot (int size) {
+		System.out.println(SnapshotMerrySet.class);
+		SnapshotMerrySet<Integer> set = new SnapshotMerrySet();
+		HashSet<Integer> expected = new HashSet();
+		Random random = new Random(1234);
+		SnapshotMerrySet.Snapshot<Integer> old = null;
+		HashSet<Integer> oldExpected = null;
+		for (int i = 0; i < size * 20; i++) {
+			Integer key = random.nextInt(size) * 31; // Multiples of 31 make clusters.
+			if (random.nextInt(3) == 0)
+				assertEquals(set.remove(key), expected.remove(key));
+			else
+				assertEquals(set.add(key), expected.add(key));
+			if (i % size == 0) {
+				old = set.snapshot();
+				oldExpected = new HashSet(expected);
+			}
+		}
+		Integer[] batch = new Integer[size];
+		for (int i = 0; i < size; i++)
+			batch[i] = i * 7;
+		set.addAll(batch);
+		expected.addAll(Arrays.asList(batch));
+		for (SnapshotMerrySet.Snapshot<Integer> snapshot : new SnapshotMerrySet.Snapshot[] {set.snapshot(), old}) {
+			HashSet<Integer> keys = snapshot == old ? oldExpected : expected;
+			assertEquals(snapshot.size, keys.size());
+			int count = 0;
+			for (Integer key : snapshot) {
+				if (!keys.contains(key)) throw new GdxRuntimeException("Snapshot has an extra key: " + key);
+				count++;
+			}
+			assertEquals(count, keys.size());
+			for (Integer key : keys)
+				if (!snapshot.contains(key)) throw new GdxRuntimeException("Snapshot is missing a key: " + key);
+		}
+		set.removeAll(batch);
+		expected.removeAll(Arrays.asList(batch));
+		assertEquals(set.size(), expected.size());
+		for (Integer key : expected)
+			if (!set.contains(key)) throw new GdxRuntimeException("removeAll() failed: " + key);
+		set.clear();
+		assertEquals(set.size(), 0);
+	}
+
+	/** Checks {@link SegmentedMerrySet} against HashSet for every family of {@link AdversarialKeys}, including removing with
+	 * the iterator across segments. */
+	private void testSegmented (int size) {
+		for (AdversarialKeys.Family family : AdversarialKeys.Family.values()) {
+			System.out.println(SegmentedMerrySet.class + " " + family);
+			Object[] keys = family.generate(size);
+			SegmentedMerrySet set = new SegmentedMerrySet(4, 0, 0.8f);
+			HashSet expected = new HashSet();
+			for (int i = 0; i < size; i++)
+				assertEquals(set.add(keys[i]), expected.add(keys[i]));
+			for (int i = 0; i < size; i += 3)
+				assertEquals(set.remove(keys[i]), expected.remove(keys[i]));
+			assertEquals(set.size, (long)expected.size());
+			int i = 0;
+			for (Iterator iter = set.iterator(); iter.hasNext(); i++) {
+				Object key = iter.next();
+				if (!expected.contains(key)) throw new GdxRuntimeException("Iterator returned an extra key: " + key);
+				if ((i & 1) == 0) {
+					iter.remove();
+					expected.remove(key);
+				}
+			}
+			assertEquals(set.size, (long)expected.size());
+			int count = 0;
+			for (Object key : set)
+				count++;
+			assertEquals(count, expected.size());
+			for (Object key : expected)
+				if (!set.contains(key)) throw new GdxRuntimeException("contains() failed: " + key);
+		}
+	}
+
+	/** Checks that growing with {@link ResizeBenchmark#growInPlace(MerrySet)} keeps every key reachable for every family of
+	 * {@link AdversarialKeys} and {@link Placement}. */
+	private void testInPlaceResize (int size) {
+		System.out.println(MerrySet.class + " in place resize");
+		for (AdversarialKeys.Family family : AdversarialKeys.Family.values()) {
+			Object[] keys = family.generate(size);
+			for (Placement placement : Placement.values()) {
+				MerrySet set = placement.newSet();
+				for (int i = 0; i < size; i++) {
+					if (set.size + 1 >= set.threshold) ResizeBenchmark.growInPlace(set);
+					if (!set.add(keys[i])) throw new GdxRuntimeException("add() failed: " + keys[i]);
+					if ((i & 127) == 0) {
+						for (int ii = 0; ii <= i; ii++)
+							if (!set.contains(keys[ii])) throw new GdxRuntimeException("Resize lost a key: " + family + " " + placement);
+					}
+				}
+				assertEquals(set.size, size);
+				for (int i = 0; i < size; i++)
+					if (!set.contains(keys[i])) throw new GdxRuntimeException("Resize lost a key: " + family + " " + placement);
+			}
+		}
+	}
+
+	/** Checks that {@link MerrySetSerializer} restores the same table layout, across buffer boundaries and with keys larger than
+	 * the buffer. */
+	private void testSerializer () {
+		System.out.println(MerrySetSerializer.class);
+		try {
+			Path file = Files.createTempFile("merryset", ".bin");
+			try {
+				MerrySet<String> words = new MerrySet();
+				words.addAll(Wordlist.loadBible());
+				words.addAll("h\u00e9llo", "\u4e16\u754c", "\ud834\udd1e", new String(new char[MerrySetSerializer.BUFFER_SIZE + 1]));
+				MerrySetSerializer<String> strings = new MerrySetSerializer(new MerrySetSerializer.StringCodec());
+				strings.write(words, file);
+				MerrySet<String> restored = strings.read(file);
+				assertEquals(restored.size, words.size);
+				if (!Arrays.equals(restored.keyTable, words.keyTable)) throw new GdxRuntimeException("Layout was not restored.");
+				assertEquals(restored, words);
+
+				MerrySet<Long> longs = new MerrySet();
+				for (long i = 0; i < 300000; i++)
+					longs.add(i * 0xC13FA9A902A6328FL);
+				MerrySetSerializer<Long> longSerializer = new MerrySetSerializer(new MerrySetSerializer.LongCodec());
+				longSerializer.write(longs, file);
+				MerrySet<Long> restoredLongs = longSerializer.read(file);
+				if (!Arrays.equals(restoredLongs.keyTable, longs.keyTable)) throw new GdxRuntimeException("Layout was not restored.");
+				restoredLongs.add(-1L);
+				if (!restoredLongs.contains(-1L) || !restoredLongs.contains(0xC13FA9A902A6328FL))
+					throw new GdxRuntimeException("Restored set doesn't work.");
+
+				longSerializer.write(new MerrySet(), file);
+				assertEquals(longSerializer.read(file).size, 0);
+
+				// Corrupt key lengths, negative and larger than MAX_KEY_LENGTH.
+				for (int length : new int[] {-1, Integer.MAX_VALUE}) {
+					ByteBuffer corrupt = ByteBuffer.allocate(32);
+					corrupt.putInt(MerrySetSerializer.MAGIC).put((byte)MerrySetSerializer.VERSION);
+					corrupt.putInt(2).putFloat(0.5f).putInt(1); // Capacity, load factor, size.
+					corrupt.put((byte)0).put((byte)1); // No gap, a run of 1 key.
+					for (int i = 0; i < 4; i++)
+						corrupt.put((byte)(length >>> i * 7 | 0x80));
+					corrupt.put((byte)(length >>> 28));
+					Files.write(file, Arrays.copyOf(corrupt.array(), corrupt.position()));
+					try {
+						strings.read(file);
+						throw new GdxRuntimeException("Corrupt key length was read: " + length);
+					} catch (IOException expected) {
+					}
+				}
+			} finally {
+				Files.delete(file);
+			}
+		} catch (IOException ex) {
+			throw new GdxRuntimeException(ex);
+		}
+	}
+
+	/** Counts the bible with small chunks so words are carried between chunks, then twice over as concatenated gzip members. */
+	private void testDistinctCounter () {
+		System.out.println(DistinctCounter.class);
+		try {
+			String[] words = Wordlist.loadBible();
+			MerrySet<String> expected = new MerrySet();
+			expected.addAll(words);
+			byte[] bible = Files.readAllBytes(Paths.get(Wordlist.BIBLE_FILENAME));
+			ByteArrayOutputStream twice = new ByteArrayOutputStream();
+			twice.write(bible);
+			try (GZIPOutputStream newline = new GZIPOutputStream(twice)) {
+				newline.write('\n'); // The bible doesn't end with a newline.
+				newline.finish();
+				twice.write(bible);
+			}
+			for (int workers = 1; workers <= 3; workers++) {
+				DistinctCounter counter = new DistinctCounter(workers, 4096, 2);
+				DistinctCounter.Result result = counter.count(new GZIPInputStream(new ByteArrayInputStream(bible)));
+				assertEquals(result.tokens, (long)words.length);
+				assertEquals(result.distinct(), (long)expected.size);
+				assertEquals(result.words(), expected);
+				result = counter.count(new GZIPInputStream(new ByteArrayInputStream(twice.toByteArray())));
+				assertEquals(result.tokens, words.length * 2L);
+				assertEquals(result.distinct(), (long)expected.size);
+			}
+
+			char[] longWord = new char[100];
+			Arrays.fill(longWord, 'x');
+			byte[] text = ("a " + new String(longWord) + " b a").getBytes(StandardCharsets.UTF_8);
+			DistinctCounter.Result result = new DistinctCounter(2, 8, 1).count(new ByteArrayInputStream(text));
+			assertEquals(result.tokens, 4L);
+			assertEquals(result.words(), MerrySet.with("a", new String(longWord), "b"));
+		} catch (IOException | InterruptedException ex) {
+			throw new GdxRuntimeException(ex);
+		}
+	}
+
+	/** Checks nested iteration with {@link MerrySet#nextOccupied(int)} and removing keys with {@link MerrySet#removeAt(int)}
+	 * against a HashSet. */
+	private void testCursor (int size) {
+		System.out.println(MerrySet.class + " cursor");
+		Random random = new Random(9);
+		for (int round = 0; round < 20; round++) {
+			MerrySet<Integer> set = new MerrySet();
+			HashSet<Integer> expected = new HashSet();
+			for (int i = 0; i < size; i++) {
+				int key = random.nextInt(size * 4);
+				set.add(key);
+				expected.add(key);
+			}
+			int pairs = 0;
+			for (int i = set.nextOccupied(0); i != -1; i = set.nextOccupied(i + 1))
+				for (int ii = set.nextOccupied(0); ii != -1; ii = set.nextOccupied(ii + 1))
+					if (set.keyAt(i).equals(set.keyAt(ii))) pairs++;
+			assertEquals(pairs, expected.size());
+
+			HashSet<Integer> visited = new HashSet();
+			for (int i = set.nextOccupied(0); i != -1;) {
+				Integer key = set.keyAt(i);
+				visited.add(key);
+				if ((key & 1) == 0) {
+					expected.remove(key);
+					i = set.nextOccupied(set.removeAt(i));
+				} else
+					i = set.nextOccupied(i + 1);
+			}
+			if (visited.size() != pairs) throw new GdxRuntimeException("removeAt skipped keys: " + visited.size() + " != " + pairs);
+			assertEquals(set.size, expected.size());
+			for (Integer key : expected)
+				if (!set.contains(key)) throw new GdxRuntimeException("removeAt lost a key: " + key);
+			for (int i = set.nextOccupied(0); i != -1; i = set.nextOccupied(i + 1))
+				if (!expected.contains(set.keyAt(i))) throw new GdxRuntimeException("removeAt didn't remove: " + set.keyAt(i));
+		}
+	}
+
+	/** Checks {@link MerryLongSet} and {@link OffHeapLongSet}, with direct and mapped pages small enough that the table spans
+	 * several, against a HashSet with random adds and removes, including the 0 key. */
+	private void testLongSets (int size) {
+		System.out.println(MerryLongSet.class);
+		System.out.println(OffHeapLongSet.class);
+		try {
+			Path directory = Files.createTempDirectory("offheap");
+			MerryLongSet onHeap = new MerryLongSet();
+			OffHeapLongSet direct = new OffHeapLongSet(0, 0.8f, null, 8);
+			OffHeapLongSet mapped = new OffHeapLongSet(0, 0.8f, directory.toFile(), 8);
+			HashSet<Long> expected = new HashSet();
+			Random random = new Random(11);
+			for (int i = 0; i < size * 4; i++) {
+				long key = random.nextInt(size) * 0xC13FA9A902A6328FL; // Includes 0.
+				boolean add = random.nextInt(3) != 0, changed = add ? expected.add(key) : expected.remove(key);
+				if ((add ? onHeap.add(key) : onHeap.remove(key)) != changed)
+					throw new GdxRuntimeException("MerryLongSet failed: " + key);
+				if ((add ? direct.add(key) : direct.remove(key)) != changed)
+					throw new GdxRuntimeException("OffHeapLongSet direct failed: " + key);
+				if ((add ? mapped.add(key) : mapped.remove(key)) != changed)
+					throw new GdxRuntimeException("OffHeapLongSet mapped failed: " + key);
+			}
+			assertEquals(onHeap.size, expected.size());
+			assertEquals(direct.size, expected.size());
+			assertEquals(mapped.size, expected.size());
+			if (direct.getCapacity() <= 1 << 8) throw new GdxRuntimeException("Table should span several pages.");
+			for (long i = 0; i < size; i++) {
+				long key = i * 0xC13FA9A902A6328FL;
+				boolean contains = expected.contains(key);
+				if (onHeap.contains(key) != contains || direct.contains(key) != contains || mapped.contains(key) != contains)
+					throw new GdxRuntimeException("contains failed: " + key);
+			}
+			direct.close();
+			mapped.clear();
+			assertEquals(mapped.size, 0);
+			if (mapped.contains(0) || mapped.contains(0xC13FA9A902A6328FL)) throw new GdxRuntimeException("clear failed.");
+			mapped.close();
+			try (Stream<Path> files = Files.list(directory)) {
+				if (files.count() != 0) throw new GdxRuntimeException("Table files weren't deleted.");
+			}
+			Files.delete(directory);
+		} catch (IOException ex) {
+			throw new GdxRuntimeException(ex);
+		}
+	}
+
 	public void create () {
 		testMap(ArrayMap.class, values, valuesWithNulls);
 		testMap(IdentityMap.class, values, valuesWithNulls);
@@ -293,6 +745,7 @@ public class CollectionsTest {
 		testMap(ObjectIntMap.class, values, intValues);
 		testMap(ObjectMap.class, values, valuesWithNulls);
 		testMap(OrderedMap.class, values, valuesWithNulls);
+		testMap(MerryObjectIntMap.class, values, intValues);
 
 		testEmptyMaps();
 
@@ -311,8 +764,27 @@ public class CollectionsTest {
 // testSet(OrderedSet.class, values);
 
 		testSet(MerrySet.class, problemValues);
+		testSet(HopscotchSet.class, values);
+		testSet(BloomMerrySet.class, values);
+		testSet(SegmentedMerrySet.class, values);
+		testSet(HopscotchSet.class, problemValues);
 // testSet(OrderedSet.class, problemValues);
 
+		for (Placement placement : Placement.values())
+			testAdversarial(1000, placement);
+		testHopscotch(1000);
+		testBloom(10000);
+		testWordCount();
+		testIntern();
+		testCache();
+		testSnapshot(2000);
+		testSegmented(5000);
+		testInPlaceResize(2000);
+		testCursor(1000);
+		testLongSets(20000);
+		testSerializer();
+		testDistinctCounter();
+
 		System.out.println("Success!");
 	}
 
@@ -40,8 +40,10 @@ public class ContainsBenchmark {
 	public Object Cuckoo (CuckooState state, Blackhole blackhole) {
 		ObjectSet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			blackhole.consume(set.contains(words[i]));
+		AllocationProfiler.stop(allocated);
 		return blackhole;
 	}
 
@@ -49,8 +51,10 @@ public class ContainsBenchmark {
 	public Object HashSet (HashSetState state, Blackhole blackhole) {
 		HashSet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			blackhole.consume(set.contains(words[i]));
+		AllocationProfiler.stop(allocated);
 		return blackhole;
 	}
 
@@ -58,8 +62,21 @@ public class ContainsBenchmark {
 	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
 		MerrySet set = state.set;
 		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
 		for (int i = 0, n = words.length; i < n; i++)
 			blackhole.consume(set.contains(words[i]));
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object Hopscotch (HopscotchState state, Blackhole blackhole) {
+		HopscotchSet set = state.set;
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = words.length; i < n; i++)
+			blackhole.consume(set.contains(words[i]));
+		AllocationProfiler.stop(allocated);
 		return blackhole;
 	}
 
@@ -116,4 +133,22 @@ public class ContainsBenchmark {
 			}
 		}
 	}
+
+	@State(Scope.Thread)
+	static public class HopscotchState {
+		@Param({"100", "256", "1000", "10000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+
+		public String[] words;
+		public final HopscotchSet set = new HopscotchSet();
+
+		@Setup(Level.Trial)
+		public void setup () {
+			words = Wordlist.loadWords(size, seed);
+			for (int i = 0, n = words.length; i < n; i++) {
+				set.add(words[i]);
+				++i; // Skip adding every other word so half the contains return false (is this reasonable for real world?).
+			}
+		}
+	}
 }
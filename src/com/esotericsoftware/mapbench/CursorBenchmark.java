@@ -0,0 +1,153 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.esotericsoftware.mapbench.MerrySet.ObjectSetIterator;
+
+/** Iterating a MerrySet without {@link MerrySet#iterator()}, which can't be nested. Pairs compares every pair of keys with a
+ * nested loop, remove removes the keys with an even length in one pass.
+ * <p>
+ * Cursor uses {@link MerrySet#nextOccupied(int)}, {@link MerrySet#keyAt(int)} and {@link MerrySet#removeAt(int)}. Iterator
+ * allocates an {@link ObjectSetIterator} for each loop, as {@link com.badlogic.gdx.utils.Collections#allocateIterators} does.
+ * IteratorReset reuses two iterators, resetting the inner one for each outer key. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class CursorBenchmark {
+	@Benchmark
+	public int Cursor (SetState state) {
+		MerrySet<String> set = state.set;
+		int count = 0;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case pairs:
+			for (int i = set.nextOccupied(0); i != -1; i = set.nextOccupied(i + 1)) {
+				int length = set.keyAt(i).length();
+				for (int ii = set.nextOccupied(0); ii != -1; ii = set.nextOccupied(ii + 1))
+					if (set.keyAt(ii).length() == length) count++;
+			}
+			break;
+		case remove:
+			for (int i = set.nextOccupied(0); i != -1;) {
+				if ((set.keyAt(i).length() & 1) == 0) {
+					i = set.nextOccupied(set.removeAt(i));
+					count++;
+				} else
+					i = set.nextOccupied(i + 1);
+			}
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return count;
+	}
+
+	@Benchmark
+	public int Iterator (SetState state) {
+		MerrySet<String> set = state.set;
+		int count = 0;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case pairs:
+			for (ObjectSetIterator<String> outer = new ObjectSetIterator(set); outer.hasNext;) {
+				int length = outer.next().length();
+				for (ObjectSetIterator<String> inner = new ObjectSetIterator(set); inner.hasNext;)
+					if (inner.next().length() == length) count++;
+			}
+			break;
+		case remove:
+			for (ObjectSetIterator<String> iter = new ObjectSetIterator(set); iter.hasNext;) {
+				if ((iter.next().length() & 1) == 0) {
+					iter.remove();
+					count++;
+				}
+			}
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return count;
+	}
+
+	@Benchmark
+	public int IteratorReset (SetState state) {
+		MerrySet<String> set = state.set;
+		ObjectSetIterator<String> outer = state.outer, inner = state.inner;
+		int count = 0;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case pairs:
+			for (outer.reset(); outer.hasNext;) {
+				int length = outer.next().length();
+				for (inner.reset(); inner.hasNext;)
+					if (inner.next().length() == length) count++;
+			}
+			break;
+		case remove:
+			for (outer.reset(); outer.hasNext;) {
+				if ((outer.next().length() & 1) == 0) {
+					outer.remove();
+					count++;
+				}
+			}
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return count;
+	}
+
+	static public enum Op {
+		pairs, remove
+	}
+
+	@State(Scope.Thread)
+	static public class SetState {
+		@Param({"100", "1000", "5000"}) public int size; // Words to load from the file.
+		@Param({"pairs", "remove"}) public Op op;
+
+		public String[] keys;
+		public MerrySet<String> set;
+		ObjectSetIterator<String> outer, inner;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			keys = Wordlist.loadWords(size, -1);
+			fill();
+		}
+
+		/** Refills the set before each invocation when the keys are removed. */
+		@Setup(Level.Invocation)
+		public void refill () {
+			if (op == Op.remove) fill();
+		}
+
+		void fill () {
+			set = new MerrySet();
+			set.addAll(keys);
+			outer = new ObjectSetIterator(set);
+			inner = new ObjectSetIterator(set);
+		}
+	}
+}
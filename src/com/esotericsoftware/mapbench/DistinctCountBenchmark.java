@@ -0,0 +1,108 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Counts the distinct words in {@link Wordlist#BIBLE_FILENAME} concatenated with itself, as gzip members, into a multi-GB
+ * input. 512 copies is about 2 GB of text and 400M words. The input is written once to {@link Wordlist#CACHE_DIRECTORY}.
+ * <p>
+ * DistinctCounter is the {@link DistinctCounter} pipeline with 1 to N workers. SingleThread is the baseline: the tokenizer
+ * adds each word to one MerrySet of Strings on the thread that decompresses. Decompression is single threaded in both, so
+ * scaling stops once the workers keep up with it, and only shows on a machine with more cores than workers. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class DistinctCountBenchmark {
+	@Benchmark
+	public Object DistinctCounter (InputState input, WorkersState state) throws IOException, InterruptedException {
+		long allocated = AllocationProfiler.start();
+		DistinctCounter.Result result;
+		try (InputStream stream = input.open()) {
+			result = new DistinctCounter(state.workers).count(stream);
+		}
+		AllocationProfiler.stop(allocated);
+		return result;
+	}
+
+	@Benchmark
+	public Object SingleThread (InputState input) throws IOException {
+		long allocated = AllocationProfiler.start();
+		MerrySet<String> set = new MerrySet();
+		try (InputStream stream = input.open()) {
+			Tokenizer.addWords(stream, Integer.MAX_VALUE, set::add);
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@State(Scope.Thread)
+	static public class InputState {
+		@Param({"512"}) public int copies;
+
+		File file;
+
+		@Setup(Level.Trial)
+		public void setup () throws IOException {
+			byte[] bible = Files.readAllBytes(Paths.get(Wordlist.BIBLE_FILENAME));
+			// The bible doesn't end with a newline, so a member with just a newline separates the copies.
+			ByteArrayOutputStream newline = new ByteArrayOutputStream();
+			try (GZIPOutputStream output = new GZIPOutputStream(newline)) {
+				output.write('\n');
+			}
+			file = new File(Wordlist.CACHE_DIRECTORY, "bible-" + copies + ".txt.gz");
+			if (file.length() == (long)(bible.length + newline.size()) * copies) return;
+			file.getParentFile().mkdirs();
+			try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+				for (int i = 0; i < copies; i++) {
+					output.write(bible);
+					newline.writeTo(output);
+				}
+			}
+		}
+
+		InputStream open () throws IOException {
+			return new GZIPInputStream(new FileInputStream(file), 1 << 16);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class WorkersState {
+		@Param({"1", "2", "4", "8"}) public int workers;
+	}
+}
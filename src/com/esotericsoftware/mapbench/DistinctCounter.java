@@ -0,0 +1,312 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+/** Counts the distinct words in a stream using a pipeline of threads. The calling thread reads (and for gzip, decompresses) the
+ * stream into chunks that end on a word boundary and hands them to a pool of tokenizer workers through a bounded queue. Each
+ * worker keeps its own {@link MerrySet} for every hash partition, so no locks are taken per word. When the stream ends, the
+ * workers merge the sets for each partition in parallel, and the distinct count is the sum of the merged partition sizes.
+ * <p>
+ * Words are stored as {@link Word} instances rather than Strings. A worker probes with a reusable Word that refers to the bytes
+ * of the chunk, and {@link MerrySet#addIfAbsent(Object, java.util.function.Function)} copies the bytes only the first time the
+ * worker sees a word, so repeated words don't allocate.
+ * <p>
+ * Reading is single threaded, so decompression bounds throughput once there are enough workers to keep up with it. */
+public class DistinctCounter {
+	static private final Chunk endOfStream = new Chunk(0);
+
+	final int workerCount, partitionCount, chunkSize, queueSize;
+
+	/** Creates a counter with 1MB chunks and a queue of 2 chunks per worker. */
+	public DistinctCounter (int workers) {
+		this(workers, 1 << 20, workers * 2);
+	}
+
+	/** @param chunkSize The size of each chunk handed to a worker. A chunk grows if a single word is larger.
+	 * @param queueSize The number of chunks that can wait for a worker. Chunks are reused, so at most queueSize + workers + 1
+	 *           chunks are allocated. */
+	public DistinctCounter (int workers, int chunkSize, int queueSize) {
+		if (workers < 1) throw new IllegalArgumentException("workers must be > 0: " + workers);
+		if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+		if (queueSize < 1) throw new IllegalArgumentException("queueSize must be > 0: " + queueSize);
+		this.workerCount = workers;
+		this.partitionCount = workers == 1 ? 1 : Integer.highestOneBit(workers - 1) << 1; // Next power of two >= workers.
+		this.chunkSize = chunkSize;
+		this.queueSize = queueSize;
+	}
+
+	/** Reads the stream until it ends and returns the distinct words. The stream is not closed. */
+	public Result count (InputStream input) throws IOException, InterruptedException {
+		ArrayBlockingQueue<Chunk> full = new ArrayBlockingQueue(queueSize);
+		ArrayBlockingQueue<Chunk> free = new ArrayBlockingQueue(queueSize + workerCount + 1);
+		for (int i = 0, n = queueSize + workerCount + 1; i < n; i++)
+			free.add(new Chunk(chunkSize));
+
+		long start = System.nanoTime();
+		MerrySet<Word>[] partitions = new MerrySet[partitionCount];
+		Worker[] workers = new Worker[workerCount];
+		CountDownLatch tokenized = new CountDownLatch(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			workers[i] = new Worker(i, workers, partitions, full, free, tokenized);
+			workers[i].start();
+		}
+		try {
+			read(input, full, free);
+		} finally {
+			for (int i = 0; i < workerCount; i++)
+				full.put(endOfStream);
+			for (Worker worker : workers)
+				worker.join();
+		}
+		long tokens = 0;
+		for (Worker worker : workers) {
+			if (worker.error != null) throw new RuntimeException("Worker " + worker.index + " failed.", worker.error);
+			tokens += worker.tokens;
+		}
+		return new Result(tokens, System.nanoTime() - start, partitions);
+	}
+
+	/** Fills chunks from the stream and splits each after its last non-word byte. The incomplete word at the end is carried to
+	 * the start of the next chunk. */
+	private void read (InputStream input, ArrayBlockingQueue<Chunk> full, ArrayBlockingQueue<Chunk> free)
+		throws IOException, InterruptedException {
+		Chunk chunk = free.take();
+		int end = 0;
+		while (true) {
+			byte[] bytes = chunk.bytes;
+			if (end == bytes.length) chunk.bytes = bytes = Arrays.copyOf(bytes, bytes.length << 1); // A single word fills the chunk.
+			int count = input.read(bytes, end, bytes.length - end);
+			if (count == -1) {
+				chunk.length = end;
+				full.put(chunk);
+				return;
+			}
+			end += count;
+			if (end < bytes.length) continue;
+
+			int split = end;
+			while (split > 0 && Tokenizer.isWordByte(bytes[split - 1]))
+				split--;
+			if (split == 0) continue;
+			Chunk next = free.take();
+			int carry = end - split;
+			if (next.bytes.length <= carry) next.bytes = new byte[bytes.length];
+			System.arraycopy(bytes, split, next.bytes, 0, carry);
+			chunk.length = split;
+			full.put(chunk);
+			chunk = next;
+			end = carry;
+		}
+	}
+
+	/** Counts the distinct words in a file, decompressing it if the name ends with ".gz". Gzip members that were concatenated are
+	 * read as one stream.
+	 * <p>
+	 * Usage: DistinctCounter file [workers] */
+	static public void main (String[] args) throws Exception {
+		String file = args.length > 0 ? args[0] : Wordlist.BIBLE_FILENAME;
+		int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		InputStream input = new FileInputStream(file);
+		if (file.endsWith(".gz")) input = new GZIPInputStream(input, 1 << 16);
+		try {
+			System.out.println(new DistinctCounter(workers).count(input) + " (" + workers + " workers)");
+		} finally {
+			input.close();
+		}
+	}
+
+	static private class Chunk {
+		byte[] bytes;
+		int length;
+
+		Chunk (int size) {
+			bytes = new byte[size];
+		}
+	}
+
+	static private class Worker extends Thread implements Tokenizer.Listener {
+		final int index;
+		final Worker[] workers;
+		final MerrySet<Word>[] partitions, sets;
+		final ArrayBlockingQueue<Chunk> full, free;
+		final CountDownLatch tokenized;
+		final Word probe = new Word();
+		final int mask;
+		long tokens;
+		volatile Throwable error;
+
+		Worker (int index, Worker[] workers, MerrySet<Word>[] partitions, ArrayBlockingQueue<Chunk> full,
+			ArrayBlockingQueue<Chunk> free, CountDownLatch tokenized) {
+			super("DistinctCounter-" + index);
+			setDaemon(true);
+			this.index = index;
+			this.workers = workers;
+			this.partitions = partitions;
+			this.full = full;
+			this.free = free;
+			this.tokenized = tokenized;
+			sets = new MerrySet[partitions.length];
+			for (int i = 0, n = sets.length; i < n; i++)
+				sets[i] = new MerrySet();
+			mask = sets.length - 1;
+		}
+
+		public void run () {
+			try {
+				try {
+					// After a failure, chunks are still taken so the reader doesn't block.
+					while (true) {
+						Chunk chunk = full.take();
+						if (chunk == endOfStream) break;
+						if (error == null) {
+							try {
+								Tokenizer.tokenize(chunk.bytes, 0, chunk.length, this);
+							} catch (Throwable ex) {
+								error = ex;
+							}
+						}
+						free.put(chunk);
+					}
+				} finally {
+					tokenized.countDown();
+				}
+				tokenized.await();
+
+				// Merge each partition assigned to this worker into the largest of the workers' sets for it.
+				for (int p = index, n = partitions.length; p < n; p += workers.length) {
+					MerrySet<Word> merged = workers[0].sets[p];
+					for (Worker worker : workers)
+						if (worker.sets[p].size > merged.size) merged = worker.sets[p];
+					for (Worker worker : workers)
+						if (worker.sets[p] != merged) merged.addAll(worker.sets[p]);
+					partitions[p] = merged;
+				}
+			} catch (Throwable ex) {
+				if (error == null) error = ex;
+			}
+		}
+
+		public boolean word (byte[] bytes, int offset, int length) {
+			Word probe = this.probe;
+			probe.set(bytes, offset, length);
+			sets[probe.partition() & mask].addIfAbsent(probe, Word::new);
+			tokens++;
+			return true;
+		}
+	}
+
+	/** A word as UTF-8 bytes, with a hashcode computed from the bytes. */
+	static public final class Word {
+		byte[] bytes;
+		int offset, length, hashCode;
+
+		Word () {
+		}
+
+		/** Copies the bytes of the word. */
+		Word (Word word) {
+			bytes = Arrays.copyOfRange(word.bytes, word.offset, word.offset + word.length);
+			length = word.length;
+			hashCode = word.hashCode;
+		}
+
+		void set (byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+			int h = 0;
+			for (int i = offset, n = offset + length; i < n; i++)
+				h = 31 * h + bytes[i];
+			hashCode = h;
+		}
+
+		/** Returns bits for the partition that are independent of the high bits {@link MerrySet} uses for placement. */
+		int partition () {
+			int h = hashCode ^ hashCode >>> 16;
+			h *= 0x85EBCA6B;
+			return h ^ h >>> 13;
+		}
+
+		public int hashCode () {
+			return hashCode;
+		}
+
+		public boolean equals (Object object) {
+			if (!(object instanceof Word)) return false;
+			Word other = (Word)object;
+			if (other.hashCode != hashCode || other.length != length) return false;
+			byte[] bytes = this.bytes, otherBytes = other.bytes;
+			for (int i = offset, j = other.offset, n = offset + length; i < n; i++, j++)
+				if (bytes[i] != otherBytes[j]) return false;
+			return true;
+		}
+
+		public String toString () {
+			return new String(bytes, offset, length, StandardCharsets.UTF_8);
+		}
+	}
+
+	static public class Result {
+		/** The number of words read. */
+		public final long tokens;
+		/** The time from the start of reading until the partitions were merged. */
+		public final long nanos;
+		final MerrySet<Word>[] partitions;
+
+		Result (long tokens, long nanos, MerrySet<Word>[] partitions) {
+			this.tokens = tokens;
+			this.nanos = nanos;
+			this.partitions = partitions;
+		}
+
+		public long distinct () {
+			long distinct = 0;
+			for (MerrySet<Word> partition : partitions)
+				distinct += partition.size;
+			return distinct;
+		}
+
+		public double tokensPerSecond () {
+			return tokens / (nanos / 1e9);
+		}
+
+		/** Returns the distinct words as Strings. */
+		public MerrySet<String> words () {
+			MerrySet<String> words = new MerrySet((int)distinct());
+			for (MerrySet<Word> partition : partitions)
+				for (Word word : partition)
+					words.add(word.toString());
+			return words;
+		}
+
+		public String toString () {
+			return tokens + " tokens, " + distinct() + " distinct, " + (long)tokensPerSecond() + " tokens/sec";
+		}
+	}
+}
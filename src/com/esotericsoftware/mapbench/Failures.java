@@ -0,0 +1,52 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/** Records benchmark failures, such as a set running out of memory, to a CSV file so they show up next to the results. JMH
+ * continues with the next benchmark after a failure, but the failed benchmark has no result row.
+ * <p>
+ * The file is set with the {@code mapbench.failures} system property and defaults to {@code charts/results/failures.csv}. */
+public class Failures {
+	static public final String FILENAME = System.getProperty("mapbench.failures", "charts/results/failures.csv");
+
+	/** Appends a row with the benchmark, its parameters and the exception. */
+	static public synchronized void record (String benchmark, String params, Throwable ex) {
+		File file = new File(FILENAME);
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		boolean header = !file.exists();
+		try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+			if (header) writer.println("\"Benchmark\",\"Params\",\"Exception\"");
+			writer.println(quote(benchmark) + ',' + quote(params) + ',' + quote(ex.toString()));
+		} catch (IOException ioEx) {
+			System.out.println("Unable to record failure: " + benchmark + " " + params + " " + ex);
+			ioEx.printStackTrace();
+		}
+	}
+
+	static private String quote (String value) {
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
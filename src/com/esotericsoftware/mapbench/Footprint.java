@@ -0,0 +1,251 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+/** Measures the retained size of sets by walking the object graph, excluding the keys themselves, and writes bytes per entry for
+ * each size and load factor to a CSV file in the same format as JMH results. Field offsets and array layouts come from
+ * sun.misc.Unsafe, so the sizes match the running JVM's compressed oops and object alignment. Unsafe is called by reflection,
+ * like in {@link OffHeapLongSet}, and no agent is needed.
+ * <p>
+ * Usage: Footprint [file] */
+public class Footprint {
+	static public final int[] SIZES = {100, 256, 1000, 10000, 100000, 1000000};
+	static public final float[] LOAD_FACTORS = {0.5f, 0.6f, 0.7f, 0.75f, 0.8f, 0.85f, 0.9f, 0.95f};
+	static public final String[] IMPLEMENTATIONS = {"Cuckoo", "HashSet", "MerrySet"};
+
+	static private final Object unsafe;
+	static private final Method objectFieldOffset, arrayBaseOffset, arrayIndexScale, getObject;
+	static private final int objectHeader, objectAlignment;
+	static {
+		try {
+			Class unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			objectFieldOffset = unsafeClass.getMethod("objectFieldOffset", Field.class);
+			arrayBaseOffset = unsafeClass.getMethod("arrayBaseOffset", Class.class);
+			arrayIndexScale = unsafeClass.getMethod("arrayIndexScale", Class.class);
+			getObject = unsafeClass.getMethod("getObject", Object.class, long.class);
+			objectHeader = (int)objectFieldOffset(Header.class.getDeclaredField("field"));
+			objectAlignment = objectAlignment();
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private final HashMap<Class, Field[]> classFields = new HashMap();
+
+	/** Returns the number of bytes retained by the root, including objects it references but not the excluded objects. Objects
+	 * referenced only through static fields, such as HashSet's shared value, are counted if reachable through instance fields. */
+	public long retainedSize (Object root, IdentityHashMap<Object, Boolean> exclude) {
+		IdentityHashMap<Object, Boolean> visited = new IdentityHashMap();
+		ArrayDeque<Object> stack = new ArrayDeque();
+		stack.push(root);
+		visited.put(root, Boolean.TRUE);
+		long total = 0;
+		while (!stack.isEmpty()) {
+			Object object = stack.pop();
+			Class type = object.getClass();
+			if (type.isArray()) {
+				int length = Array.getLength(object);
+				total += align(arrayBaseOffset(type) + (long)arrayIndexScale(type) * length);
+				if (type.getComponentType().isPrimitive()) continue;
+				Object[] array = (Object[])object;
+				for (int i = 0; i < length; i++)
+					visit(array[i], visited, exclude, stack);
+				continue;
+			}
+			total += shallowSize(type);
+			for (Field field : fields(type))
+				visit(getObject(object, objectFieldOffset(field)), visited, exclude, stack);
+		}
+		return total;
+	}
+
+	private void visit (Object object, IdentityHashMap<Object, Boolean> visited, IdentityHashMap<Object, Boolean> exclude,
+		ArrayDeque<Object> stack) {
+		if (object == null || object instanceof Class || exclude.containsKey(object) || visited.containsKey(object)) return;
+		visited.put(object, Boolean.TRUE);
+		stack.push(object);
+	}
+
+	/** Returns the size of an instance of the class, not including objects it references. */
+	private long shallowSize (Class type) {
+		long end = objectHeader;
+		for (Class c = type; c != null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) continue;
+				end = Math.max(end, objectFieldOffset(field) + fieldSize(field.getType()));
+			}
+		}
+		return align(end);
+	}
+
+	/** Returns the non-static, non-primitive fields of the class and its superclasses. */
+	private Field[] fields (Class type) {
+		Field[] fields = classFields.get(type);
+		if (fields == null) {
+			ArrayList<Field> list = new ArrayList();
+			for (Class c = type; c != null; c = c.getSuperclass())
+				for (Field field : c.getDeclaredFields())
+					if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) list.add(field);
+			fields = list.toArray(new Field[list.size()]);
+			classFields.put(type, fields);
+		}
+		return fields;
+	}
+
+	static private int fieldSize (Class type) {
+		if (type == long.class || type == double.class) return 8;
+		if (type == int.class || type == float.class) return 4;
+		if (type == short.class || type == char.class) return 2;
+		if (type == byte.class || type == boolean.class) return 1;
+		return arrayIndexScale(Object[].class); // Reference size, 4 with compressed oops.
+	}
+
+	static private long align (long size) {
+		return (size + objectAlignment - 1) / objectAlignment * objectAlignment;
+	}
+
+	static private long objectFieldOffset (Field field) {
+		return (Long)invoke(objectFieldOffset, field);
+	}
+
+	static private int arrayBaseOffset (Class type) {
+		return (Integer)invoke(arrayBaseOffset, type);
+	}
+
+	static private int arrayIndexScale (Class type) {
+		return (Integer)invoke(arrayIndexScale, type);
+	}
+
+	static private Object getObject (Object object, long offset) {
+		return invoke(getObject, object, offset);
+	}
+
+	static private Object invoke (Method method, Object... args) {
+		try {
+			return method.invoke(unsafe, args);
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	static private int objectAlignment () {
+		try {
+			Class beanClass = Class.forName("com.sun.management.HotSpotDiagnosticMXBean");
+			Object bean = java.lang.management.ManagementFactory.getPlatformMXBean(beanClass);
+			Object option = beanClass.getMethod("getVMOption", String.class).invoke(bean, "ObjectAlignmentInBytes");
+			return Integer.parseInt((String)option.getClass().getMethod("getValue").invoke(option));
+		} catch (Throwable ex) {
+			return 8;
+		}
+	}
+
+	/** Creates a set of the implementation and adds the words.
+	 * @param presize If true the set is created with enough capacity for all the words, else the default capacity is used and
+	 *           the set grows as words are added. */
+	static public Object newSet (String implementation, String[] words, float loadFactor, boolean presize) {
+		int capacity = presize ? words.length : 51;
+		if (implementation.equals("Cuckoo")) {
+			ObjectSet set = new ObjectSet(capacity, loadFactor);
+			for (String word : words)
+				set.add(word);
+			return set;
+		}
+		if (implementation.equals("HashSet")) {
+			HashSet set = new HashSet(presize ? (int)Math.ceil(capacity / loadFactor) : 16, loadFactor);
+			for (String word : words)
+				set.add(word);
+			return set;
+		}
+		if (implementation.equals("MerrySet")) {
+			MerrySet set = new MerrySet(capacity, loadFactor);
+			for (String word : words)
+				set.add(word);
+			return set;
+		}
+		throw new IllegalArgumentException("Unknown implementation: " + implementation);
+	}
+
+	/** Returns the words without duplicates, in the order first seen, so a presized set has exactly the capacity it needs. */
+	static public String[] distinct (String[] words) {
+		LinkedHashSet<String> set = new LinkedHashSet(words.length);
+		for (String word : words)
+			set.add(word);
+		return set.toArray(new String[set.size()]);
+	}
+
+	/** Returns the number of bytes retained per key by the set, not including the keys.
+	 * @param words Distinct keys that were added to the set. */
+	public double bytesPerEntry (Object set, String[] words) {
+		IdentityHashMap<Object, Boolean> keys = new IdentityHashMap();
+		for (String word : words)
+			keys.put(word, Boolean.TRUE);
+		return retainedSize(set, keys) / (double)words.length;
+	}
+
+	static public void main (String[] args) throws Exception {
+		File file = new File(args.length > 0 ? args[0] : "charts/results/footprint.csv");
+		if (file.getParentFile() != null) file.getParentFile().mkdirs();
+		Footprint footprint = new Footprint();
+		System.out.println("Object header: " + objectHeader + ", reference: " + fieldSize(Object.class) + ", alignment: "
+			+ objectAlignment);
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			writer.println("\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\","
+				+ "\"Param: loadFactor\",\"Param: presize\",\"Param: size\"");
+			for (int size : SIZES) {
+				String[] words = distinct(Wordlist.loadWords(size, -1));
+				for (float loadFactor : LOAD_FACTORS) {
+					for (boolean presize : new boolean[] {false, true}) {
+						for (String implementation : IMPLEMENTATIONS) {
+							double bytes = footprint.bytesPerEntry(newSet(implementation, words, loadFactor, presize), words);
+							writer.println(String.format(Locale.ROOT, "\"%s.%s\",\"footprint\",1,1,%.3f,NaN,\"B/key\",%s,%s,%d",
+								Footprint.class.getName(), implementation, bytes, loadFactor, presize, size));
+							System.out.println(String.format("%-8s size=%-7d loadFactor=%-4s presize=%-5s %7.2f bytes/key",
+								implementation, size, loadFactor, presize, bytes));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	static private class Header {
+		int field;
+	}
+}
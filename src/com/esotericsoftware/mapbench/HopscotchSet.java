@@ -0,0 +1,428 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Collections;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** An unordered set where the keys are objects, using hopscotch hashing. Every key is stored within {@link #NEIGHBORHOOD} slots
+ * of its place and each slot has a bitmap of which slots in its neighborhood hold keys placed there, so contains and remove
+ * examine only those keys: at most 32 consecutive slots, usually one or two cache lines, whether the key is found or not. Null
+ * keys are not allowed. No allocation is done except when growing the table size.
+ * <p>
+ * When a key can't be moved into its neighborhood, the table grows. If growing can't help, eg when more than 32 keys have the same
+ * hashcode, the key is put in an overflow {@link MerrySet} stash instead, so colliding hashcodes make lookups slower (linear
+ * probing in the stash) rather than failing like cuckoo hashing does. Lookups only check the stash when it is not empty.
+ * <p>
+ * Keys are placed with Fibonacci hashing, the same as {@link MerrySet#place(Object)}. */
+public class HopscotchSet<T> implements Iterable<T> {
+	/** The number of slots a key can be from its place. */
+	static public final int NEIGHBORHOOD = 32;
+
+	public int size;
+
+	T[] keyTable;
+	/** For each slot, bit j is set if the slot j after it holds a key placed at this slot. */
+	int[] hopInfo;
+	/** Keys that could not be put in their neighborhood, or null. */
+	MerrySet<T> stash;
+
+	float loadFactor;
+	int threshold;
+	protected int shift, mask;
+
+	private HopscotchSetIterator iterator1, iterator2;
+
+	/** Creates a new set with an initial capacity of 51 and a load factor of 0.8. */
+	public HopscotchSet () {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new set with a load factor of 0.8.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public HopscotchSet (int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/** Creates a new set with the specified initial capacity and load factor. This set will hold initialCapacity items before
+	 * growing the backing table.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public HopscotchSet (int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		initialCapacity = MathUtils.nextPowerOfTwo((int)Math.ceil(Math.max(1, initialCapacity) / loadFactor));
+		if (initialCapacity > 1 << 30) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		this.loadFactor = loadFactor;
+
+		threshold = (int)(initialCapacity * loadFactor);
+		mask = initialCapacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		keyTable = (T[])(new Object[initialCapacity]);
+		hopInfo = new int[initialCapacity];
+	}
+
+	/** Creates a new set identical to the specified set. */
+	public HopscotchSet (HopscotchSet<? extends T> set) {
+		this((int)Math.floor(set.keyTable.length * set.loadFactor), set.loadFactor);
+		System.arraycopy(set.keyTable, 0, keyTable, 0, set.keyTable.length);
+		System.arraycopy(set.hopInfo, 0, hopInfo, 0, set.hopInfo.length);
+		if (set.stash != null && set.stash.size > 0) stash = new MerrySet(set.stash);
+		size = set.size;
+	}
+
+	/** Returns an index >= 0 and <= {@link #mask} for the specified {@code item}. See {@link MerrySet#place(Object)}. */
+	protected int place (T item) {
+		return (int)(item.hashCode() * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Returns the index of the key in the table, or -1 if it is not in the table. The stash is not checked. */
+	int locateKey (T key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		T[] keyTable = this.keyTable;
+		int place = place(key), mask = this.mask;
+		for (int bits = hopInfo[place]; bits != 0; bits &= bits - 1) {
+			int i = place + Integer.numberOfTrailingZeros(bits) & mask;
+			if (keyTable[i].equals(key)) return i;
+		}
+		return -1;
+	}
+
+	/** Returns true if the key was not already in the set. If this set already contains the key, the call leaves the set unchanged
+	 * and returns false. */
+	public boolean add (T key) {
+		if (locateKey(key) >= 0) return false;
+		if (stash != null && stash.size > 0 && stash.contains(key)) return false;
+		if (!addTable(key)) {
+			// Growing doesn't help if the neighborhood is full of keys with the same place, or the table is mostly empty.
+			if (hopInfo[place(key)] == -1 || size < keyTable.length >>> 3)
+				addStash(key);
+			else {
+				resize(keyTable.length << 1);
+				if (!addTable(key)) addStash(key);
+			}
+		}
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return true;
+	}
+
+	public boolean addAll (T... array) {
+		return addAll(array, 0, array.length);
+	}
+
+	public boolean addAll (T[] array, int offset, int length) {
+		ensureCapacity(length);
+		int oldSize = size;
+		for (int i = offset, n = i + length; i < n; i++)
+			add(array[i]);
+		return oldSize != size;
+	}
+
+	/** Puts the key in its neighborhood, first moving other keys closer to their places if the nearest empty slot is too far.
+	 * Skips checks for existing keys, doesn't increment size.
+	 * @return false if no empty slot could be moved into the neighborhood. */
+	private boolean addTable (T key) {
+		T[] keyTable = this.keyTable;
+		int[] hopInfo = this.hopInfo;
+		int place = place(key), mask = this.mask, n = keyTable.length, distance = 0;
+		while (keyTable[place + distance & mask] != null)
+			if (++distance == n) return false;
+		outer:
+		while (distance >= NEIGHBORHOOD) {
+			// Find the farthest back slot whose neighborhood has a key before the empty slot, then move it to the empty slot.
+			int empty = place + distance & mask;
+			for (int k = NEIGHBORHOOD - 1; k > 0; k--) {
+				int slot = empty - k & mask, bits = hopInfo[slot];
+				if (bits == 0) continue;
+				int j = Integer.numberOfTrailingZeros(bits);
+				if (j >= k) continue;
+				int from = slot + j & mask;
+				keyTable[empty] = keyTable[from];
+				keyTable[from] = null;
+				hopInfo[slot] = bits & ~(1 << j) | 1 << k;
+				distance -= k - j;
+				continue outer;
+			}
+			return false;
+		}
+		keyTable[place + distance & mask] = key;
+		hopInfo[place] |= 1 << distance;
+		return true;
+	}
+
+	private void addStash (T key) {
+		if (stash == null) stash = new MerrySet();
+		stash.add(key);
+	}
+
+	/** Returns true if the key was removed. */
+	public boolean remove (T key) {
+		int i = locateKey(key);
+		if (i < 0) {
+			if (stash == null || stash.size == 0 || !stash.remove(key)) return false;
+			size--;
+			return true;
+		}
+		int place = place(keyTable[i]);
+		hopInfo[place] &= ~(1 << (i - place & mask));
+		keyTable[i] = null;
+		size--;
+		return true;
+	}
+
+	/** Returns true if the set has one or more items. */
+	public boolean notEmpty () {
+		return size > 0;
+	}
+
+	/** Returns true if the set is empty. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Returns the number of keys that could not be put in their neighborhood. */
+	public int getStashSize () {
+		return stash == null ? 0 : stash.size;
+	}
+
+	/** Clears the set and reduces the size of the backing arrays to be the specified capacity, if they are larger. */
+	public void clear (int maximumCapacity) {
+		maximumCapacity = MathUtils.nextPowerOfTwo(Math.max(1, maximumCapacity));
+		if (keyTable.length <= maximumCapacity) {
+			clear();
+			return;
+		}
+		size = 0;
+		stash = null;
+		resize(maximumCapacity);
+	}
+
+	/** Clears the set, leaving the backing arrays at the current capacity. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		Arrays.fill(keyTable, null);
+		Arrays.fill(hopInfo, 0);
+		stash = null;
+	}
+
+	public boolean contains (T key) {
+		return locateKey(key) >= 0 || (stash != null && stash.size > 0 && stash.contains(key));
+	}
+
+	public T get (T key) {
+		int i = locateKey(key);
+		if (i >= 0) return keyTable[i];
+		return stash == null || stash.size == 0 ? null : stash.get(key);
+	}
+
+	/** Increases the size of the backing array to accommodate the specified number of additional items. Useful before adding many
+	 * items to avoid multiple backing array resizes. */
+	public void ensureCapacity (int additionalCapacity) {
+		if (additionalCapacity < 0) throw new IllegalArgumentException("additionalCapacity must be >= 0: " + additionalCapacity);
+		int sizeNeeded = size + additionalCapacity;
+		if (sizeNeeded >= threshold) resize(MathUtils.nextPowerOfTwo((int)Math.ceil(sizeNeeded / loadFactor)));
+	}
+
+	/** Rebuilds the table. Keys from the stash are tried in the new table and any that still don't fit are stashed again. */
+	private void resize (int newSize) {
+		int oldCapacity = keyTable.length;
+		threshold = (int)(newSize * loadFactor);
+		mask = newSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		T[] oldKeyTable = keyTable;
+		MerrySet<T> oldStash = stash;
+
+		keyTable = (T[])(new Object[newSize]);
+		hopInfo = new int[newSize];
+		stash = null;
+
+		if (size > 0) {
+			for (int i = 0; i < oldCapacity; i++) {
+				T key = oldKeyTable[i];
+				if (key != null && !addTable(key)) addStash(key);
+			}
+			if (oldStash != null) {
+				for (T key : new MerrySet.ObjectSetIterator<T>(oldStash))
+					if (!addTable(key)) addStash(key);
+			}
+		}
+	}
+
+	public int hashCode () {
+		int h = size;
+		T[] keyTable = this.keyTable;
+		for (int i = 0, n = keyTable.length; i < n; i++)
+			if (keyTable[i] != null) h += keyTable[i].hashCode();
+		if (stash != null) {
+			for (T key : new MerrySet.ObjectSetIterator<T>(stash))
+				h += key.hashCode();
+		}
+		return h;
+	}
+
+	public boolean equals (Object obj) {
+		if (!(obj instanceof HopscotchSet)) return false;
+		HopscotchSet other = (HopscotchSet)obj;
+		if (other.size != size) return false;
+		for (T key : new HopscotchSetIterator<T>(this))
+			if (!other.contains(key)) return false;
+		return true;
+	}
+
+	public String toString () {
+		if (size == 0) return "{}";
+		java.lang.StringBuilder buffer = new java.lang.StringBuilder(32);
+		buffer.append('{');
+		for (T key : new HopscotchSetIterator<T>(this)) {
+			if (buffer.length() > 1) buffer.append(", ");
+			buffer.append(key == this ? "(this)" : key);
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+
+	/** Returns an iterator for the keys in the set, table keys first then stash keys. Remove is supported.
+	 * <p>
+	 * If {@link Collections#allocateIterators} is false, the same iterator instance is returned each time this method is called.
+	 * Use the {@link HopscotchSetIterator} constructor for nested or multithreaded iteration. */
+	public HopscotchSetIterator<T> iterator () {
+		if (Collections.allocateIterators) return new HopscotchSetIterator(this);
+		if (iterator1 == null) {
+			iterator1 = new HopscotchSetIterator(this);
+			iterator2 = new HopscotchSetIterator(this);
+		}
+		if (!iterator1.valid) {
+			iterator1.reset();
+			iterator1.valid = true;
+			iterator2.valid = false;
+			return iterator1;
+		}
+		iterator2.reset();
+		iterator2.valid = true;
+		iterator1.valid = false;
+		return iterator2;
+	}
+
+	static public <T> HopscotchSet<T> with (T... array) {
+		HopscotchSet<T> set = new HopscotchSet<T>();
+		set.addAll(array);
+		return set;
+	}
+
+	/** Removing a key never moves other keys in the table, so iteration continues at the next slot. */
+	static public class HopscotchSetIterator<K> implements Iterable<K>, Iterator<K> {
+		public boolean hasNext;
+
+		final HopscotchSet<K> set;
+		int nextIndex, currentIndex;
+		MerrySet.ObjectSetIterator<K> stashIterator;
+		boolean valid = true, inStash;
+
+		public HopscotchSetIterator (HopscotchSet<K> set) {
+			this.set = set;
+			reset();
+		}
+
+		public void reset () {
+			currentIndex = -1;
+			nextIndex = -1;
+			stashIterator = null;
+			inStash = false;
+			findNextIndex();
+		}
+
+		private void findNextIndex () {
+			K[] keyTable = set.keyTable;
+			for (int n = keyTable.length; ++nextIndex < n;) {
+				if (keyTable[nextIndex] != null) {
+					hasNext = true;
+					return;
+				}
+			}
+			if (stashIterator == null && set.stash != null && set.stash.size > 0)
+				stashIterator = new MerrySet.ObjectSetIterator(set.stash);
+			hasNext = stashIterator != null && stashIterator.hasNext;
+		}
+
+		public void remove () {
+			if (inStash) {
+				stashIterator.remove();
+				inStash = false;
+				hasNext = stashIterator.hasNext;
+				set.size--;
+				return;
+			}
+			if (currentIndex < 0) throw new IllegalStateException("next must be called before remove.");
+			K[] keyTable = set.keyTable;
+			int place = set.place(keyTable[currentIndex]);
+			set.hopInfo[place] &= ~(1 << (currentIndex - place & set.mask));
+			keyTable[currentIndex] = null;
+			currentIndex = -1;
+			set.size--;
+		}
+
+		public boolean hasNext () {
+			if (!valid) throw new GdxRuntimeException("#iterator() cannot be used nested.");
+			return hasNext;
+		}
+
+		public K next () {
+			if (!hasNext) throw new NoSuchElementException();
+			if (!valid) throw new GdxRuntimeException("#iterator() cannot be used nested.");
+			if (nextIndex >= set.keyTable.length) {
+				K key = stashIterator.next();
+				currentIndex = -1;
+				inStash = true;
+				hasNext = stashIterator.hasNext;
+				return key;
+			}
+			K key = set.keyTable[nextIndex];
+			currentIndex = nextIndex;
+			inStash = false;
+			findNextIndex();
+			return key;
+		}
+
+		public HopscotchSetIterator<K> iterator () {
+			return this;
+		}
+
+		/** Adds the remaining values to the array. */
+		public Array<K> toArray (Array<K> array) {
+			while (hasNext)
+				array.add(next());
+			return array;
+		}
+
+		/** Returns a new array containing the remaining values. */
+		public Array<K> toArray () {
+			return toArray(new Array<K>(true, set.size));
+		}
+	}
+}
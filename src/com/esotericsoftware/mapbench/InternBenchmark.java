@@ -0,0 +1,96 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esotericsoftware.mapbench.WordCountBenchmark.WordsState;
+
+/** Interns every word in {@link Wordlist#BIBLE_FILENAME}, about 790k new String instances of 13k distinct words, starting from
+ * an empty interner each invocation. GetThenAdd is what {@link MerrySet#addOrGet(Object)} replaces: two probes for each new
+ * word. String.intern() uses the JVM's string table, which can't be emptied, so after the first invocation every word is a hit. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class InternBenchmark {
+	@Benchmark
+	public Object AddOrGet (WordsState state, Blackhole blackhole) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		MerrySet<String> set = new MerrySet();
+		for (int i = 0, n = words.length; i < n; i++)
+			blackhole.consume(set.addOrGet(words[i]));
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object AddIfAbsent (WordsState state, Blackhole blackhole) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		MerrySet<String> set = new MerrySet();
+		for (int i = 0, n = words.length; i < n; i++)
+			blackhole.consume(set.addIfAbsent(words[i], String::new)); // Store a copy, eg of a substring of a larger buffer.
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object GetThenAdd (WordsState state, Blackhole blackhole) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		MerrySet<String> set = new MerrySet();
+		for (int i = 0, n = words.length; i < n; i++) {
+			String word = set.get(words[i]);
+			if (word == null) {
+				word = words[i];
+				set.add(word);
+			}
+			blackhole.consume(word);
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object ComputeIfAbsent (WordsState state, Blackhole blackhole) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		HashMap<String, String> map = new HashMap();
+		for (int i = 0, n = words.length; i < n; i++)
+			blackhole.consume(map.computeIfAbsent(words[i], word -> word));
+		AllocationProfiler.stop(allocated);
+		return map;
+	}
+
+	@Benchmark
+	public Object StringIntern (WordsState state, Blackhole blackhole) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = words.length; i < n; i++)
+			blackhole.consume(words[i].intern());
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+}
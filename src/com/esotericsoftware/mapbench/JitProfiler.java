@@ -0,0 +1,320 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/** Reports how C2 compiled and inlined the hot methods of the probe loop. Each fork runs with -XX:+LogCompilation, and after the
+ * fork the log is parsed to print, for each watched method, its bytecode size, the highest tier it was compiled at, how many of
+ * its C2 call sites inlined it and what it calls that C2 didn't inline, eg a megamorphic {@link Object#equals(Object)}.
+ * <p>
+ * A watched method that C2 didn't inline into a hot caller, a hot call from a watched method that C2 didn't inline, or a watched
+ * method larger than the default FreqInlineSize (325 bytes) is flagged as a regression. The number of flags is reported as
+ * "·jit.flags", so it can be compared between runs. Call sites that were too cold to inline are not flagged.
+ * <p>
+ * The watched methods default to MerrySet.locateKey and every place method. Others can be given as class and method names,
+ * where the class can be *, eg: -prof com.esotericsoftware.mapbench.JitProfiler:MerrySet.locateKey,*.place,*.equals
+ * <p>
+ * {@link Benchmarks} adds this profiler with -jit. It needs forks, it does nothing with -f 0. */
+public class JitProfiler implements ExternalProfiler {
+	/** Inlining is expected for hot methods up to this size, the default for -XX:FreqInlineSize. */
+	static public final int FREQ_INLINE_SIZE = 325;
+
+	static private final Pattern attribute = Pattern.compile("(\\w+)='([^']*)'");
+	static private final String[] coldReasons = {"MinInliningThreshold", "not reached", "too cold"};
+
+	final String[] methods;
+	private File log;
+
+	public JitProfiler () {
+		this("");
+	}
+
+	/** @param methods Comma separated class and method names, without packages. If empty, the defaults are used. */
+	public JitProfiler (String methods) {
+		if (methods.trim().isEmpty()) methods = "MerrySet.locateKey,*.place";
+		this.methods = methods.trim().split("\\s*,\\s*");
+	}
+
+	public Collection<String> addJVMInvokeOptions (BenchmarkParams params) {
+		return Collections.emptyList();
+	}
+
+	public Collection<String> addJVMOptions (BenchmarkParams params) {
+		try {
+			log = File.createTempFile("jit", ".log");
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		return Arrays.asList("-XX:+UnlockDiagnosticVMOptions", "-XX:+LogCompilation", "-XX:LogFile=" + log.getAbsolutePath());
+	}
+
+	public void beforeTrial (BenchmarkParams params) {
+	}
+
+	public Collection<? extends Result> afterTrial (BenchmarkResult result, long pid, File stdOut, File stdErr) {
+		try {
+			if (log == null || !log.exists() || log.length() == 0) {
+				System.out.println("JIT: No compilation log was written.");
+				return Collections.emptyList();
+			}
+			CompilationLog compilations = new CompilationLog();
+			compilations.parse(log);
+			List<String> flags = report(compilations);
+			return Collections.singletonList(new ScalarResult("·jit.flags", flags.size(), "flags", AggregationPolicy.MAX));
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			if (log != null) log.delete();
+		}
+	}
+
+	/** Prints the compilation and inlining of each watched method.
+	 * @return The regressions. */
+	List<String> report (CompilationLog compilations) {
+		System.out.println();
+		LinkedHashSet<String> flags = new LinkedHashSet();
+		TreeMap<String, Integer> watched = new TreeMap();
+		for (Map.Entry<String, Integer> entry : compilations.bytes.entrySet())
+			if (isWatched(entry.getKey())) watched.put(entry.getKey(), entry.getValue());
+		if (watched.isEmpty()) System.out.println("JIT: None of the watched methods were compiled: " + String.join(",", methods));
+
+		for (Map.Entry<String, Integer> entry : watched.entrySet()) {
+			String method = entry.getKey();
+			int bytes = entry.getValue();
+			Integer tier = compilations.tiers.get(method);
+			int sites = 0, inlined = 0;
+			TreeMap<String, Integer> reasons = new TreeMap(), callees = new TreeMap();
+			for (Call call : compilations.calls) {
+				if (call.callee.equals(method) && !call.isCold()) {
+					sites++;
+					if (call.inlined)
+						inlined++;
+					else {
+						reasons.merge(call.reason, 1, Integer::sum);
+						flags.add(method + " not inlined into " + call.caller + ": " + call.reason);
+					}
+				}
+				if (call.caller.equals(method)) {
+					callees.merge(call.callee + ": " + call.reason + (call.inlined ? "" : ", not inlined"), 1, Integer::sum);
+					if (!call.inlined && !call.isCold()) flags.add(method + " calls " + call.callee + " not inlined: " + call.reason);
+				}
+			}
+			if (bytes > FREQ_INLINE_SIZE) flags.add(method + " is " + bytes + " bytes, larger than FreqInlineSize " + FREQ_INLINE_SIZE);
+
+			StringBuilder buffer = new StringBuilder(128);
+			buffer.append("JIT: ").append(method).append(" (").append(bytes).append(" bytes): ");
+			buffer.append(tier == null ? "not compiled" : "compiled at tier " + tier);
+			buffer.append(", C2 inlined it at ").append(inlined).append(" of ").append(sites).append(" hot call sites");
+			if (!reasons.isEmpty()) buffer.append(' ').append(reasons);
+			System.out.println(buffer);
+			for (Map.Entry<String, Integer> callee : callees.entrySet())
+				System.out.println("JIT:   calls " + callee.getKey() + " (" + callee.getValue() + "x)");
+		}
+		for (String flag : flags)
+			System.out.println("JIT regression: " + flag);
+		return new ArrayList(flags);
+	}
+
+	boolean isWatched (String method) {
+		for (String pattern : methods) {
+			if (pattern.startsWith("*.") ? method.endsWith(pattern.substring(1)) : method.equals(pattern)) return true;
+		}
+		return false;
+	}
+
+	public boolean allowPrintOut () {
+		return true;
+	}
+
+	public boolean allowPrintErr () {
+		return true;
+	}
+
+	public String getDescription () {
+		return "C2 compilation and inlining of the probe loop's hot methods.";
+	}
+
+	/** The C2 calls, bytecode sizes and highest compiled tiers from a -XX:+LogCompilation file. Methods are named by their class,
+	 * without the package, and method name. */
+	static class CompilationLog {
+		final ArrayList<Call> calls = new ArrayList();
+		final HashMap<String, Integer> bytes = new HashMap(), tiers = new HashMap();
+
+		void parse (File file) throws IOException {
+			HashSet<String> c2 = new HashSet();
+			HashMap<String, ArrayList<Call>> tasks = new HashMap();
+			HashMap<String, String> klasses = new HashMap(), methods = new HashMap();
+			ArrayList<String> parses = new ArrayList();
+			ArrayList<Call> taskCalls = null;
+			Call pending = null;
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("<nmethod ")) {
+						Map<String, String> attributes = attributes(line);
+						String method = attributes.get("method");
+						if (method == null) continue;
+						int tier = intValue(attributes, "level");
+						tiers.merge(methodName(method), tier, Math::max);
+						if (tier == 4 || "c2".equalsIgnoreCase(attributes.get("compiler"))) c2.add(attributes.get("compile_id"));
+					} else if (line.startsWith("<task ")) {
+						taskCalls = new ArrayList();
+						tasks.put(attributes(line).get("compile_id"), taskCalls);
+						klasses.clear();
+						methods.clear();
+						parses.clear();
+						pending = null;
+					} else if (taskCalls == null)
+						continue;
+					else if (line.startsWith("<klass ")) {
+						Map<String, String> attributes = attributes(line);
+						klasses.put(attributes.get("id"), simpleName(attributes.get("name")));
+					} else if (line.startsWith("<method ")) {
+						Map<String, String> attributes = attributes(line);
+						String name = klasses.get(attributes.get("holder")) + "." + attributes.get("name");
+						methods.put(attributes.get("id"), name);
+						bytes.merge(name, intValue(attributes, "bytes"), Math::max);
+					} else if (line.startsWith("<parse ")) {
+						pending = resolve(pending, taskCalls);
+						parses.add(methods.get(attributes(line).get("method")));
+					} else if (line.startsWith("</parse>")) {
+						pending = resolve(pending, taskCalls);
+						if (!parses.isEmpty()) parses.remove(parses.size() - 1);
+					} else if (line.startsWith("<call ")) {
+						Map<String, String> attributes = attributes(line);
+						String callee = methods.getOrDefault(attributes.get("method"), "?");
+						// A virtual call with a receiver profile is followed by a call for each predicted receiver's method.
+						if (pending != null && !(pending.isVirtual && callee.endsWith(pending.name()))) resolve(pending, taskCalls);
+						String caller = parses.isEmpty() ? "?" : parses.get(parses.size() - 1);
+						pending = new Call(caller, callee, attributes.containsKey("virtual"), intValue(attributes, "count"));
+					} else if (line.startsWith("<inline_success ") || line.startsWith("<inline_fail ")) {
+						if (pending == null) continue;
+						pending.inlined = line.startsWith("<inline_success ");
+						pending.reason = unescape(attributes(line).get("reason"));
+						taskCalls.add(pending);
+						pending = null;
+					} else if (line.startsWith("<virtual_call ")) {
+						pending = resolve(pending, taskCalls);
+					} else if (line.startsWith("</task>")) {
+						resolve(pending, taskCalls);
+						pending = null;
+						taskCalls = null;
+					}
+				}
+			}
+			for (Map.Entry<String, ArrayList<Call>> entry : tasks.entrySet())
+				if (c2.contains(entry.getKey())) calls.addAll(entry.getValue());
+		}
+
+		/** Records a call that was followed by no inlining decision, which C2 does for a megamorphic virtual call.
+		 * @return null */
+		static private Call resolve (Call pending, ArrayList<Call> taskCalls) {
+			if (pending != null) {
+				pending.inlined = false;
+				pending.reason = pending.isVirtual ? "virtual call" : "not inlined";
+				taskCalls.add(pending);
+			}
+			return null;
+		}
+
+		/** Returns "Class.method" for "package.Class method (signature)" or "package/Class method (signature)". */
+		static String methodName (String method) {
+			String[] parts = method.split(" ");
+			return simpleName(parts[0]) + "." + parts[1];
+		}
+
+		/** Returns the class name without its package. Some JVMs, eg Java 8, log binary names with '/' as the separator. */
+		static private String simpleName (String className) {
+			if (className == null) return "?";
+			className = className.replace('/', '.');
+			return className.substring(className.lastIndexOf('.') + 1);
+		}
+
+		static private String unescape (String value) {
+			if (value == null) return "";
+			return value.replace("&lt;", "<").replace("&gt;", ">").replace("&apos;", "'").replace("&quot;", "\"").replace("&amp;", "&");
+		}
+
+		static private int intValue (Map<String, String> attributes, String name) {
+			String value = attributes.get(name);
+			return value == null ? 0 : Integer.parseInt(value);
+		}
+
+		static private Map<String, String> attributes (String line) {
+			HashMap<String, String> attributes = new HashMap();
+			Matcher matcher = attribute.matcher(line);
+			while (matcher.find())
+				attributes.put(matcher.group(1), matcher.group(2));
+			return attributes;
+		}
+	}
+
+	/** A call site in a C2 compilation. */
+	static class Call {
+		final String caller, callee;
+		final boolean isVirtual;
+		final int count;
+		boolean inlined;
+		String reason;
+
+		Call (String caller, String callee, boolean isVirtual, int count) {
+			this.caller = caller;
+			this.callee = callee;
+			this.isVirtual = isVirtual;
+			this.count = count;
+		}
+
+		/** Returns the callee's method name, with the leading dot. */
+		String name () {
+			return callee.substring(callee.lastIndexOf('.'));
+		}
+
+		boolean isCold () {
+			if (count == 0) return true;
+			for (String reason : coldReasons)
+				if (this.reason.contains(reason)) return true;
+			return false;
+		}
+	}
+}
@@ -0,0 +1,340 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/** Reads JMH results written with {@code -rf csv} or {@code -rf json}. JSON results include the raw samples for each iteration,
+ * CSV results only have the score and its 99.9% confidence error. */
+public class JmhResults {
+	/** Reads the results, using the file extension to choose the format. */
+	static public List<Result> read (File file) throws IOException {
+		String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		if (file.getName().toLowerCase().endsWith(".json")) return readJson(text);
+		return readCsv(text);
+	}
+
+	static public List<Result> readCsv (String text) {
+		ArrayList<Result> results = new ArrayList();
+		String[] lines = text.split("\r?\n");
+		if (lines.length == 0) return results;
+		List<String> header = csvValues(lines[0]);
+		int benchmark = header.indexOf("Benchmark"), mode = header.indexOf("Mode"), threads = header.indexOf("Threads");
+		int samples = header.indexOf("Samples"), score = header.indexOf("Score"), unit = header.indexOf("Unit");
+		int error = -1;
+		for (int i = 0, n = header.size(); i < n; i++)
+			if (header.get(i).startsWith("Score Error")) error = i;
+		if (benchmark == -1 || score == -1) throw new IllegalArgumentException("Not a JMH CSV file, missing columns: " + header);
+		for (int i = 1; i < lines.length; i++) {
+			if (lines[i].trim().isEmpty()) continue;
+			List<String> values = csvValues(lines[i]);
+			Result result = new Result();
+			result.benchmark = values.get(benchmark);
+			result.mode = mode == -1 ? "" : values.get(mode);
+			result.threads = threads == -1 ? 1 : Integer.parseInt(values.get(threads));
+			result.count = samples == -1 ? 0 : Integer.parseInt(values.get(samples));
+			result.score = number(values.get(score));
+			result.error = error == -1 ? Double.NaN : number(values.get(error));
+			result.unit = unit == -1 ? "" : values.get(unit);
+			for (int ii = 0, n = header.size(); ii < n; ii++) {
+				String column = header.get(ii);
+				if (column.startsWith("Param: ") && ii < values.size()) result.params.put(column.substring(7), values.get(ii));
+			}
+			results.add(result);
+		}
+		return results;
+	}
+
+	static public List<Result> readJson (String text) {
+		ArrayList<Result> results = new ArrayList();
+		for (Object value : (List)new JsonReader(text).value()) {
+			Map run = (Map)value;
+			Map primary = (Map)run.get("primaryMetric");
+			Result result = new Result();
+			result.benchmark = (String)run.get("benchmark");
+			result.mode = (String)run.get("mode");
+			result.threads = ((Number)run.get("threads")).intValue();
+			result.score = number(primary.get("score"));
+			result.error = number(primary.get("scoreError"));
+			result.unit = (String)primary.get("scoreUnit");
+			Map params = (Map)run.get("params");
+			if (params != null) {
+				for (Object entry : params.entrySet())
+					result.params.put((String)((Entry)entry).getKey(), String.valueOf(((Entry)entry).getValue()));
+			}
+			List rawData = (List)primary.get("rawData");
+			if (rawData != null) {
+				ArrayList<Double> samples = new ArrayList();
+				for (Object fork : rawData)
+					for (Object sample : (List)fork)
+						samples.add(number(sample));
+				result.samples = new double[samples.size()];
+				for (int i = 0, n = samples.size(); i < n; i++)
+					result.samples[i] = samples.get(i);
+			}
+			result.count = result.samples != null ? result.samples.length : 0;
+			results.add(result);
+
+			// Secondary metrics, eg from profilers, are added as results named like JMH names them in CSV files.
+			Map secondary = (Map)run.get("secondaryMetrics");
+			if (secondary != null) {
+				for (Object object : secondary.entrySet()) {
+					Entry entry = (Entry)object;
+					Map metric = (Map)entry.getValue();
+					Result secondaryResult = new Result();
+					secondaryResult.benchmark = result.benchmark + ":" + entry.getKey();
+					secondaryResult.mode = result.mode;
+					secondaryResult.threads = result.threads;
+					secondaryResult.score = number(metric.get("score"));
+					secondaryResult.error = number(metric.get("scoreError"));
+					secondaryResult.unit = (String)metric.get("scoreUnit");
+					secondaryResult.params.putAll(result.params);
+					results.add(secondaryResult);
+				}
+			}
+		}
+		return results;
+	}
+
+	static private double number (Object value) {
+		if (value instanceof Number) return ((Number)value).doubleValue();
+		String text = String.valueOf(value).trim();
+		if (text.isEmpty() || text.equals("NaN") || text.equals("null")) return Double.NaN;
+		return Double.parseDouble(text.replace(',', '.')); // Some locales write a decimal comma.
+	}
+
+	/** Splits a CSV line, removing quotes. */
+	static private List<String> csvValues (String line) {
+		ArrayList<String> values = new ArrayList();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0, n = line.length(); i < n; i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"')
+					value.append(c);
+				else if (i + 1 < n && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else
+					quoted = false;
+			} else if (c == '"')
+				quoted = true;
+			else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else
+				value.append(c);
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	static public class Result {
+		/** The fully qualified benchmark method name. Secondary metrics have a suffix, eg ":·gc.alloc.rate.norm". */
+		public String benchmark;
+		public String mode, unit;
+		public int threads, count;
+		public double score;
+		/** The 99.9% confidence interval half width, or NaN. */
+		public double error;
+		/** The raw score for every iteration, or null if not available. */
+		public double[] samples;
+		public final TreeMap<String, String> params = new TreeMap();
+
+		/** Returns true for results from a profiler rather than the benchmark itself. */
+		public boolean isSecondary () {
+			return benchmark.indexOf(':') != -1;
+		}
+
+		/** Returns true if a higher score is better, as with throughput. */
+		public boolean isHigherBetter () {
+			return mode.equals("thrpt");
+		}
+
+		/** Returns the benchmark name without the package and class, eg "MerrySet". */
+		public String getName () {
+			String name = benchmark;
+			int colon = name.indexOf(':');
+			int dot = name.lastIndexOf('.', colon == -1 ? name.length() : colon);
+			return name.substring(dot + 1);
+		}
+
+		/** Returns a key that identifies the benchmark, mode, threads and params, for matching results from different runs. */
+		public String getKey () {
+			StringBuilder buffer = new StringBuilder(benchmark);
+			buffer.append(' ').append(mode).append(" t=").append(threads);
+			for (Entry<String, String> entry : params.entrySet())
+				buffer.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+			return buffer.toString();
+		}
+
+		public String toString () {
+			return getKey() + " " + score + " ± " + error + " " + unit;
+		}
+	}
+
+	/** A minimal JSON reader producing maps, lists, strings, doubles, booleans and null. */
+	static private class JsonReader {
+		private final String text;
+		private int index;
+
+		JsonReader (String text) {
+			this.text = text;
+		}
+
+		Object value () {
+			skipWhitespace();
+			if (index >= text.length()) throw error("Unexpected end of JSON");
+			char c = text.charAt(index);
+			switch (c) {
+			case '{':
+				return object();
+			case '[':
+				return array();
+			case '"':
+				return string();
+			case 't':
+				return literal("true", Boolean.TRUE);
+			case 'f':
+				return literal("false", Boolean.FALSE);
+			case 'n':
+				return literal("null", null);
+			}
+			return number();
+		}
+
+		private Map object () {
+			TreeMap<String, Object> map = new TreeMap();
+			index++;
+			skipWhitespace();
+			if (text.charAt(index) == '}') {
+				index++;
+				return map;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = string();
+				skipWhitespace();
+				expect(':');
+				map.put(key, value());
+				skipWhitespace();
+				if (text.charAt(index) == '}') {
+					index++;
+					return map;
+				}
+				expect(',');
+			}
+		}
+
+		private List array () {
+			ArrayList<Object> list = new ArrayList();
+			index++;
+			skipWhitespace();
+			if (text.charAt(index) == ']') {
+				index++;
+				return list;
+			}
+			while (true) {
+				list.add(value());
+				skipWhitespace();
+				if (text.charAt(index) == ']') {
+					index++;
+					return list;
+				}
+				expect(',');
+			}
+		}
+
+		private String string () {
+			expect('"');
+			StringBuilder buffer = new StringBuilder();
+			while (true) {
+				char c = text.charAt(index++);
+				if (c == '"') return buffer.toString();
+				if (c != '\\') {
+					buffer.append(c);
+					continue;
+				}
+				c = text.charAt(index++);
+				switch (c) {
+				case 'n':
+					buffer.append('\n');
+					break;
+				case 't':
+					buffer.append('\t');
+					break;
+				case 'r':
+					buffer.append('\r');
+					break;
+				case 'b':
+					buffer.append('\b');
+					break;
+				case 'f':
+					buffer.append('\f');
+					break;
+				case 'u':
+					buffer.append((char)Integer.parseInt(text.substring(index, index + 4), 16));
+					index += 4;
+					break;
+				default:
+					buffer.append(c);
+				}
+			}
+		}
+
+		private Object number () {
+			int start = index;
+			while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) != -1)
+				index++;
+			if (start == index) throw error("Unexpected character: " + text.charAt(index));
+			return Double.parseDouble(text.substring(start, index));
+		}
+
+		private Object literal (String literal, Object value) {
+			if (!text.startsWith(literal, index)) throw error("Expected: " + literal);
+			index += literal.length();
+			return value;
+		}
+
+		private void expect (char c) {
+			if (index >= text.length() || text.charAt(index) != c) throw error("Expected: " + c);
+			index++;
+		}
+
+		private void skipWhitespace () {
+			while (index < text.length() && Character.isWhitespace(text.charAt(index)))
+				index++;
+		}
+
+		private IllegalArgumentException error (String message) {
+			return new IllegalArgumentException(message + " at index " + index);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashMap;
+
+/** Turns words into other kinds of keys, keeping the same duplicates and distribution. Strings from {@link Wordlist} have their
+ * hashcodes cached, which hides the cost of sets calling {@link Object#hashCode()} again when resizing or removing. */
+public enum KeyType {
+	/** The words themselves, with cached hashcodes. */
+	string,
+	/** Boxed integers. */
+	integer,
+	/** Boxed longs. */
+	longs,
+	/** {@link CompositeKey} value objects, which compute their hashcode each time and compare several fields in equals. */
+	composite,
+	/** Long strings which have never been hashed. Lookups use equal but different instances, so equals compares every char. */
+	longString,
+	/** Objects with identity hashcodes and equals. */
+	identity;
+
+	/** Returns a key for each word. Equal words get the same key instance. */
+	public Object[] keys (String[] words) {
+		HashMap<String, Object> keys = new HashMap();
+		Object[] result = new Object[words.length];
+		for (int i = 0, n = words.length; i < n; i++) {
+			String word = words[i];
+			Object key = keys.get(word);
+			if (key == null) {
+				key = key(word, keys.size());
+				keys.put(word, key);
+			}
+			result[i] = key;
+		}
+		return result;
+	}
+
+	/** Returns keys equal to the specified keys but, where possible, different instances, as happens when keys are parsed or
+	 * built for a lookup. Identity keys are returned as is. */
+	public Object[] copies (Object[] keys) {
+		Object[] result = new Object[keys.length];
+		for (int i = 0, n = keys.length; i < n; i++)
+			result[i] = copy(keys[i]);
+		return result;
+	}
+
+	/** Returns true if the keys need to be copied before each invocation so their hashcodes haven't been computed yet. */
+	public boolean uncached () {
+		return this == longString;
+	}
+
+	private Object key (String word, int index) {
+		int hash = word.hashCode();
+		switch (this) {
+		case string:
+			return word;
+		case integer:
+			return hash;
+		case longs:
+			return (long)hash << 32 ^ index;
+		case composite:
+			return new CompositeKey(hash, index, word.length());
+		case longString:
+			StringBuilder buffer = new StringBuilder(word.length() * 8 + 16);
+			buffer.append("com.esotericsoftware.mapbench/");
+			while (buffer.length() < 100)
+				buffer.append(word).append('/');
+			return buffer.toString();
+		case identity:
+			return new IdentityKey(word);
+		}
+		throw new IllegalStateException(toString());
+	}
+
+	private Object copy (Object key) {
+		switch (this) {
+		case string:
+			return key;
+		case integer:
+			return Integer.valueOf((Integer)key); // A new instance unless the value is in the small Integer cache.
+		case longs:
+			return Long.valueOf((Long)key); // A new instance unless the value is in the small Long cache.
+		case composite:
+			CompositeKey composite = (CompositeKey)key;
+			return new CompositeKey(composite.type, composite.id, composite.version);
+		case longString:
+			return new String(((String)key).toCharArray());
+		case identity:
+			return key;
+		}
+		throw new IllegalStateException(toString());
+	}
+
+	/** A key made of several fields, like an entity or tuple key. The hashcode is not cached. */
+	static public final class CompositeKey {
+		public final int type;
+		public final long id;
+		public final int version;
+
+		public CompositeKey (int type, long id, int version) {
+			this.type = type;
+			this.id = id;
+			this.version = version;
+		}
+
+		public int hashCode () {
+			int h = 31 + type;
+			h = h * 31 + (int)(id ^ id >>> 32);
+			return h * 31 + version;
+		}
+
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof CompositeKey)) return false;
+			CompositeKey other = (CompositeKey)obj;
+			return type == other.type && id == other.id && version == other.version;
+		}
+
+		public String toString () {
+			return type + ":" + id + ":" + version;
+		}
+	}
+
+	/** A key that uses {@link Object#hashCode()} and {@link Object#equals(Object)}. */
+	static public final class IdentityKey {
+		public final String name;
+
+		public IdentityKey (String name) {
+			this.name = name;
+		}
+
+		public String toString () {
+			return name;
+		}
+	}
+}
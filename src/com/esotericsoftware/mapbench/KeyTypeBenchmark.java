@@ -0,0 +1,191 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+import com.esotericsoftware.mapbench.AdversarialBenchmark.Op;
+
+/** Add, contains and remove with each {@link KeyType}, so the cost of hashCode() and equals() for keys without cached hashcodes
+ * is included. Lookups use keys that are equal to, but where possible not the same instances as, the keys in the set.
+ * <p>
+ * Each thread has its own keys and lookups. At 1M longString keys that is up to about 300 MB per thread, and add copies both
+ * for every invocation, so run it with one thread. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx2g")
+public class KeyTypeBenchmark {
+	@Benchmark
+	public Object Cuckoo (CuckooState state, Blackhole blackhole) {
+		ObjectSet set = state.set;
+		Object[] keys = state.lookups;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case remove:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.remove(keys[i]);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object HashSet (HashSetState state, Blackhole blackhole) {
+		HashSet set = state.set;
+		Object[] keys = state.lookups;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case remove:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.remove(keys[i]);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		Object[] keys = state.lookups;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case remove:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.remove(keys[i]);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	/** Before each invocation the set is filled: empty for add, every other key for contains so half are misses, and all keys
+	 * for remove. The lookup keys are copied again each invocation when the key type has uncached hashcodes. */
+	@State(Scope.Thread)
+	static public abstract class KeysState {
+		@Param({"string", "integer", "longs", "composite", "longString", "identity"}) public KeyType keyType;
+		@Param({"100", "1000", "10000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+		@Param({"add", "contains", "remove"}) public Op op;
+
+		public Object[] keys, lookups;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			keys = keyType.keys(Wordlist.loadWords(size, seed));
+			lookups = keyType.copies(keys);
+		}
+
+		@Setup(Level.Invocation)
+		public void fill () {
+			clear();
+			if (keyType.uncached()) {
+				if (op == Op.add) keys = keyType.copies(keys); // Added keys must not have been hashed.
+				lookups = keyType.copies(keys);
+			}
+			if (op == Op.add) return;
+			for (int i = 0, n = keys.length; i < n; i++) {
+				add(keys[i]);
+				if (op == Op.contains) ++i; // Skip adding every other word so half the contains return false.
+			}
+		}
+
+		abstract void clear ();
+
+		abstract void add (Object key);
+	}
+
+	@State(Scope.Thread)
+	static public class CuckooState extends KeysState {
+		public ObjectSet set = new ObjectSet();
+
+		void clear () {
+			set = new ObjectSet(); // A new set so adds include growing the table.
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HashSetState extends KeysState {
+		public HashSet set = new HashSet();
+
+		void clear () {
+			set = new HashSet();
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends KeysState {
+		public MerrySet set = new MerrySet();
+
+		void clear () {
+			set = new MerrySet();
+		}
+
+		void add (Object key) {
+			set.add(key);
+		}
+	}
+}
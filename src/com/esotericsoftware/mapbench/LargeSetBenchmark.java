@@ -0,0 +1,152 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Add and contains for very large sets, MerrySet and {@link SegmentedMerrySet}. Add starts from the default capacity, so it
+ * includes growing the tables. The keys are distinct Longs, which are smaller than strings so more fit in the heap.
+ * <p>
+ * 100M keys needs about 4 GB of heap: 1.6 GB of Longs, 400 MB for the key array and up to 768 MB of tables while growing. 500M
+ * keys needs a heap of about 20 GB, eg: -p size=500000000 -jvmArgsAppend -Xmx24g, and can't be run with MerrySet, which is
+ * limited to 2^30 slots. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class LargeSetBenchmark {
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		Long[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object Segmented (SegmentedState state, Blackhole blackhole) {
+		SegmentedMerrySet set = state.set;
+		Long[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	static public enum Op {
+		add, contains
+	}
+
+	@State(Scope.Thread)
+	static public abstract class LargeState {
+		@Param({"10000000", "100000000"}) public int size;
+		@Param public Op op;
+
+		public Long[] keys;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			keys = new Long[size];
+			for (int i = 0; i < size; i++)
+				keys[i] = i * 0xC13FA9A902A6328FL; // Odd multiplier: distinct, and spreads the keys over all 64 bits.
+		}
+
+		@Setup(Level.Invocation)
+		public void invocation () {
+			if (op == Op.add || !filled()) {
+				newSet(); // Drop the previous set before the next is filled.
+				if (op == Op.contains) {
+					for (int i = 0, n = keys.length; i < n; i++)
+						add(keys[i]);
+				}
+			}
+		}
+
+		abstract boolean filled ();
+
+		abstract void newSet ();
+
+		abstract void add (Long key);
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends LargeState {
+		public MerrySet<Long> set;
+
+		boolean filled () {
+			return set != null && set.size == size;
+		}
+
+		void newSet () {
+			set = null;
+			set = new MerrySet();
+		}
+
+		void add (Long key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class SegmentedState extends LargeState {
+		public SegmentedMerrySet<Long> set;
+
+		boolean filled () {
+			return set != null && set.size == size;
+		}
+
+		void newSet () {
+			set = null;
+			set = new SegmentedMerrySet();
+		}
+
+		void add (Long key) {
+			set.add(key);
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+import com.esotericsoftware.mapbench.AdversarialBenchmark.Op;
+
+/** Times single add, contains and remove calls rather than whole batches, so resize pauses and long probes show up in the tail
+ * instead of being averaged away. JMH's SampleTime mode reports percentiles of sampled invocations and {@link LatencyProfiler}
+ * reports percentiles of every invocation, both include the cost of System.nanoTime.
+ * <p>
+ * Adds go from an empty set until all words are added, so each pass grows the table through every resize threshold, then start
+ * again with a new set. Removes go from a full set until it is empty, then it is refilled. Contains looks up every word in a set
+ * with every other word added. Resetting happens in a setup method, outside the timing.
+ * <p>
+ * Don't use -bs with this benchmark, a batch would be timed as one operation. */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyBenchmark {
+	@Benchmark
+	public boolean Cuckoo (CuckooState state) {
+		ObjectSet set = state.set;
+		String word = state.words[state.index++];
+		LatencyRecorder recorder = state.recorder;
+		long start = System.nanoTime();
+		boolean result;
+		switch (state.op) {
+		case add:
+			result = set.add(word);
+			break;
+		case contains:
+			result = set.contains(word);
+			break;
+		default:
+			result = set.remove(word);
+		}
+		recorder.record(System.nanoTime() - start);
+		return result;
+	}
+
+	@Benchmark
+	public boolean HashSet (HashSetState state) {
+		HashSet set = state.set;
+		String word = state.words[state.index++];
+		LatencyRecorder recorder = state.recorder;
+		long start = System.nanoTime();
+		boolean result;
+		switch (state.op) {
+		case add:
+			result = set.add(word);
+			break;
+		case contains:
+			result = set.contains(word);
+			break;
+		default:
+			result = set.remove(word);
+		}
+		recorder.record(System.nanoTime() - start);
+		return result;
+	}
+
+	@Benchmark
+	public boolean MerrySet (MerrySetState state) {
+		MerrySet set = state.set;
+		String word = state.words[state.index++];
+		LatencyRecorder recorder = state.recorder;
+		long start = System.nanoTime();
+		boolean result;
+		switch (state.op) {
+		case add:
+			result = set.add(word);
+			break;
+		case contains:
+			result = set.contains(word);
+			break;
+		default:
+			result = set.remove(word);
+		}
+		recorder.record(System.nanoTime() - start);
+		return result;
+	}
+
+	@State(Scope.Thread)
+	static public abstract class OpState {
+		@Param({"100", "256", "1000", "10000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+		@Param({"add", "contains", "remove"}) public Op op;
+
+		public String[] words;
+		public int index;
+		public LatencyRecorder recorder;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			words = Wordlist.loadWords(size, seed);
+			index = words.length;
+		}
+
+		@Setup(Level.Iteration)
+		public void iteration () {
+			recorder = LatencyProfiler.recorder();
+		}
+
+		@Setup(Level.Invocation)
+		public void next () {
+			if (index < words.length) return;
+			index = 0;
+			if (op == Op.contains && size() > 0) return;
+			clear();
+			if (op == Op.add) return;
+			for (int i = 0, n = words.length; i < n; i++) {
+				add(words[i]);
+				if (op == Op.contains) ++i; // Skip adding every other word so half the contains return false.
+			}
+		}
+
+		abstract int size ();
+
+		abstract void clear ();
+
+		abstract void add (String word);
+	}
+
+	@State(Scope.Thread)
+	static public class CuckooState extends OpState {
+		public ObjectSet set = new ObjectSet();
+
+		int size () {
+			return set.size;
+		}
+
+		void clear () {
+			set = new ObjectSet(); // A new set so adds grow the table from the default capacity.
+		}
+
+		void add (String word) {
+			set.add(word);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HashSetState extends OpState {
+		public HashSet set = new HashSet();
+
+		int size () {
+			return set.size();
+		}
+
+		void clear () {
+			set = new HashSet();
+		}
+
+		void add (String word) {
+			set.add(word);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends OpState {
+		public MerrySet set = new MerrySet();
+
+		int size () {
+			return set.size;
+		}
+
+		void clear () {
+			set = new MerrySet();
+		}
+
+		void add (String word) {
+			set.add(word);
+		}
+	}
+}
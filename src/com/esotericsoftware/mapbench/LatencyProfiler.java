@@ -0,0 +1,91 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/** Reports percentiles of every latency recorded with a thread's {@link #recorder()}. JMH's SampleTime mode only times a sample
+ * of the invocations, which can miss the rare resize pauses, while this records every operation.
+ * <p>
+ * Benchmarks time each operation:
+ * 
+ * <pre>
+ * long start = System.nanoTime();
+ * set.add(word);
+ * recorder.record(System.nanoTime() - start);
+ * </pre>
+ * 
+ * Results are named "·latency.p50", "·latency.p90", "·latency.p99", "·latency.p99.9" and "·latency.max" in nanoseconds. Nothing
+ * is reported for benchmarks that don't record latencies. {@link Benchmarks} adds this profiler by default. */
+public class LatencyProfiler implements InternalProfiler {
+	static private final CopyOnWriteArrayList<LatencyRecorder> recorders = new CopyOnWriteArrayList();
+	static private final ThreadLocal<LatencyRecorder> threadRecorder = new ThreadLocal<LatencyRecorder>() {
+		protected LatencyRecorder initialValue () {
+			LatencyRecorder recorder = new LatencyRecorder();
+			recorders.add(recorder);
+			return recorder;
+		}
+	};
+
+	/** Returns the recorder for the current thread. It is reset before each iteration. */
+	static public LatencyRecorder recorder () {
+		return threadRecorder.get();
+	}
+
+	public void beforeIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+		for (LatencyRecorder recorder : recorders)
+			recorder.reset();
+	}
+
+	public Collection<? extends Result> afterIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams,
+		IterationResult result) {
+		LatencyRecorder total = new LatencyRecorder();
+		for (LatencyRecorder recorder : recorders)
+			total.add(recorder);
+		if (total.getTotalCount() == 0) return Collections.emptyList();
+		ArrayList<Result> results = new ArrayList();
+		results.add(percentile(total, "p50", 50));
+		results.add(percentile(total, "p90", 90));
+		results.add(percentile(total, "p99", 99));
+		results.add(percentile(total, "p99.9", 99.9));
+		results.add(new ScalarResult("·latency.max", total.getMax(), "ns", AggregationPolicy.MAX));
+		return results;
+	}
+
+	static private ScalarResult percentile (LatencyRecorder recorder, String name, double percentile) {
+		return new ScalarResult("·latency." + name, recorder.getValueAtPercentile(percentile), "ns", AggregationPolicy.AVG);
+	}
+
+	public String getDescription () {
+		return "Latency percentiles of every recorded operation.";
+	}
+}
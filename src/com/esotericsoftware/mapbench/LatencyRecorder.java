@@ -0,0 +1,113 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+
+/** A histogram of latencies in the style of HdrHistogram: values are counted in log-linear buckets, so each recorded value
+ * has a fixed relative precision of 3 significant digits regardless of magnitude, recording is a few shifts and an increment,
+ * and memory is fixed. Values below 2048 are recorded exactly. The maximum and minimum are exact.
+ * <p>
+ * Not thread safe, use one recorder per thread and {@link #add(LatencyRecorder)} them. */
+public class LatencyRecorder {
+	static private final int subBucketBits = 11, subBucketCount = 1 << subBucketBits, subBucketHalf = subBucketCount >>> 1;
+
+	private final long[] counts = new long[subBucketCount + (64 - subBucketBits) * subBucketHalf];
+	private long total, sum, min = Long.MAX_VALUE, max;
+
+	/** @param value Must be >= 0. Negative values are recorded as 0. */
+	public void record (long value) {
+		if (value < 0) value = 0;
+		counts[index(value)]++;
+		total++;
+		sum += value;
+		if (value < min) min = value;
+		if (value > max) max = value;
+	}
+
+	/** Adds the counts from the specified recorder to this recorder. */
+	public void add (LatencyRecorder recorder) {
+		long[] counts = this.counts, other = recorder.counts;
+		for (int i = 0, n = counts.length; i < n; i++)
+			counts[i] += other[i];
+		total += recorder.total;
+		sum += recorder.sum;
+		min = Math.min(min, recorder.min);
+		max = Math.max(max, recorder.max);
+	}
+
+	public void reset () {
+		Arrays.fill(counts, 0);
+		total = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/** Returns the value that the given percentage of recorded values are less than or equal to, rounded up to the highest value
+	 * in its bucket, or 0 if nothing was recorded.
+	 * @param percentile 0 to 100. 100 returns the exact maximum. */
+	public long getValueAtPercentile (double percentile) {
+		if (total == 0) return 0;
+		if (percentile >= 100) return max;
+		long target = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+		long[] counts = this.counts;
+		long count = 0;
+		for (int i = 0, n = counts.length; i < n; i++) {
+			count += counts[i];
+			if (count >= target) return Math.min(highestValue(i), max);
+		}
+		return max;
+	}
+
+	public long getTotalCount () {
+		return total;
+	}
+
+	/** Returns 0 if nothing was recorded. */
+	public long getMin () {
+		return total == 0 ? 0 : min;
+	}
+
+	public long getMax () {
+		return max;
+	}
+
+	public double getMean () {
+		return total == 0 ? 0 : sum / (double)total;
+	}
+
+	/** Values below subBucketCount are indexed directly, larger values keep only their top subBucketBits bits. */
+	static int index (long value) {
+		if (value < subBucketCount) return (int)value;
+		int shift = 64 - Long.numberOfLeadingZeros(value) - subBucketBits;
+		return subBucketCount + (shift - 1) * subBucketHalf + (int)(value >>> shift) - subBucketHalf;
+	}
+
+	/** Returns the highest value that has the specified index. */
+	static long highestValue (int index) {
+		if (index < subBucketCount) return index;
+		index -= subBucketCount;
+		int shift = index / subBucketHalf + 1;
+		long lowest = (long)(index % subBucketHalf + subBucketHalf) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
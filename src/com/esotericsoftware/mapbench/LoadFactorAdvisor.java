@@ -0,0 +1,245 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.esotericsoftware.mapbench.JmhResults.Result;
+import com.esotericsoftware.mapbench.LoadFactorBenchmark.Op;
+
+/** Recommends a load factor and presizing strategy for each implementation, given a target size and a mix of operations. The
+ * time for each configuration is the op mix weighted sum of the {@link LoadFactorBenchmark} scores and the memory is the
+ * {@link Footprint} bytes per key, both at the benchmarked size nearest the target. Configurations that are slower and larger
+ * than another are discarded, leaving the Pareto front, and the recommendation is the configuration on the front with the lowest
+ * time / fastest time + memoryWeight * bytes / smallest bytes.
+ * <p>
+ * Usage: LoadFactorAdvisor [-memory weight] size add=1,hit=6,miss=3,iterate=0 [loadfactor.csv] [footprint.csv]
+ * <p>
+ * Ops missing from the mix have a weight of 0. Without footprint results only time is used. */
+public class LoadFactorAdvisor {
+	/** How much memory matters relative to time when choosing from the Pareto front. 0 chooses the fastest. */
+	public float memoryWeight = 1;
+
+	private final List<Result> times, footprints;
+
+	public LoadFactorAdvisor (List<Result> times, List<Result> footprints) {
+		this.times = times;
+		this.footprints = footprints;
+	}
+
+	/** Prints the Pareto front for each implementation and returns the recommended configuration for each, keyed by
+	 * implementation name. */
+	public LinkedHashMap<String, Config> advise (int size, float[] mix) {
+		LinkedHashMap<String, Config> recommended = new LinkedHashMap();
+		for (String implementation : implementations()) {
+			int nearest = nearestSize(times, implementation, size);
+			if (nearest == -1) continue;
+			ArrayList<Config> configs = configs(implementation, nearest, mix);
+			ArrayList<Config> front = new ArrayList();
+			for (Config config : configs) {
+				boolean dominated = false;
+				for (Config other : configs)
+					if (other.dominates(config)) dominated = true;
+				if (!dominated) front.add(config);
+			}
+			if (front.isEmpty()) continue;
+			Collections.sort(front);
+
+			double fastest = Double.MAX_VALUE, smallest = Double.MAX_VALUE;
+			for (Config config : front) {
+				fastest = Math.min(fastest, config.time);
+				if (!Double.isNaN(config.bytes)) smallest = Math.min(smallest, config.bytes);
+			}
+			Config best = null;
+			double bestCost = Double.MAX_VALUE;
+			for (Config config : front) {
+				double cost = config.time / fastest;
+				if (!Double.isNaN(config.bytes)) cost += memoryWeight * config.bytes / smallest;
+				if (cost < bestCost) {
+					bestCost = cost;
+					best = config;
+				}
+			}
+			recommended.put(implementation, best);
+
+			System.out.println(implementation + " (size " + nearest + ", " + configs.size() + " configurations, " + front.size()
+				+ " on the Pareto front):");
+			for (Config config : front)
+				System.out.println((config == best ? " * " : "   ") + config);
+		}
+		return recommended;
+	}
+
+	private ArrayList<String> implementations () {
+		ArrayList<String> implementations = new ArrayList();
+		for (Result result : times)
+			if (!result.isSecondary() && !implementations.contains(result.getName())) implementations.add(result.getName());
+		return implementations;
+	}
+
+	/** Returns the configurations that have a score for every op with a non-zero weight. */
+	private ArrayList<Config> configs (String implementation, int size, float[] mix) {
+		TreeMap<String, Config> configs = new TreeMap();
+		TreeMap<String, Integer> opCounts = new TreeMap();
+		for (Result result : times) {
+			if (!matches(result, implementation, size)) continue;
+			float weight = mix[Op.valueOf(result.params.get("op")).ordinal()];
+			if (weight == 0) continue;
+			String key = result.params.get("loadFactor") + " " + result.params.get("presize");
+			Config config = configs.get(key);
+			if (config == null) {
+				config = new Config(Float.parseFloat(result.params.get("loadFactor")),
+					Boolean.parseBoolean(result.params.get("presize")));
+				config.bytes = bytes(implementation, size, config);
+				configs.put(key, config);
+				opCounts.put(key, 0);
+			}
+			config.time += weight * result.score;
+			opCounts.put(key, opCounts.get(key) + 1);
+		}
+		int ops = 0;
+		for (float weight : mix)
+			if (weight != 0) ops++;
+		ArrayList<Config> complete = new ArrayList();
+		for (String key : configs.keySet())
+			if (opCounts.get(key) == ops) complete.add(configs.get(key));
+		return complete;
+	}
+
+	/** Returns the bytes per key, or NaN if there is no footprint result for the configuration. */
+	private double bytes (String implementation, int size, Config config) {
+		if (footprints == null) return Double.NaN;
+		for (Result result : footprints) {
+			if (!matches(result, implementation, size)) continue;
+			if (Float.parseFloat(result.params.get("loadFactor")) != config.loadFactor) continue;
+			if (Boolean.parseBoolean(result.params.get("presize")) != config.presize) continue;
+			return result.score;
+		}
+		return Double.NaN;
+	}
+
+	static private boolean matches (Result result, String implementation, int size) {
+		return !result.isSecondary() && result.getName().equals(implementation) && result.params.containsKey("loadFactor")
+			&& Integer.parseInt(result.params.get("size")) == size;
+	}
+
+	/** Returns the benchmarked size closest to the target on a log scale, or -1 if there are no results. */
+	static private int nearestSize (List<Result> results, String implementation, int target) {
+		int nearest = -1;
+		double nearestDistance = Double.MAX_VALUE;
+		for (Result result : results) {
+			if (result.isSecondary() || !result.getName().equals(implementation) || !result.params.containsKey("size")) continue;
+			int size = Integer.parseInt(result.params.get("size"));
+			double distance = Math.abs(Math.log(size) - Math.log(target));
+			if (distance < nearestDistance) {
+				nearestDistance = distance;
+				nearest = size;
+			}
+		}
+		return nearest;
+	}
+
+	/** Parses a mix like "add=1,hit=6,miss=3" into a weight per {@link Op}, normalized to sum to 1. */
+	static public float[] parseMix (String text) {
+		float[] mix = new float[Op.values().length];
+		float total = 0;
+		for (String entry : text.split(",")) {
+			String[] pair = entry.split("=");
+			if (pair.length != 2) throw new IllegalArgumentException("Invalid op mix entry: " + entry);
+			float weight = Float.parseFloat(pair[1]);
+			if (weight < 0) throw new IllegalArgumentException("Weight must be >= 0: " + entry);
+			mix[Op.valueOf(pair[0].trim()).ordinal()] = weight;
+			total += weight;
+		}
+		if (total == 0) throw new IllegalArgumentException("Op mix has no weight: " + text);
+		for (int i = 0; i < mix.length; i++)
+			mix[i] /= total;
+		return mix;
+	}
+
+	static public class Config implements Comparable<Config> {
+		public final float loadFactor;
+		public final boolean presize;
+		/** The op mix weighted score. */
+		public double time;
+		/** Bytes per key, or NaN if unknown. */
+		public double bytes;
+
+		public Config (float loadFactor, boolean presize) {
+			this.loadFactor = loadFactor;
+			this.presize = presize;
+		}
+
+		/** Returns true if this config is no worse than the other in both time and memory, and better in at least one. */
+		public boolean dominates (Config other) {
+			if (Double.isNaN(bytes) || Double.isNaN(other.bytes)) return time < other.time;
+			return time <= other.time && bytes <= other.bytes && (time < other.time || bytes < other.bytes);
+		}
+
+		public int compareTo (Config other) {
+			if (loadFactor != other.loadFactor) return Float.compare(loadFactor, other.loadFactor);
+			return Boolean.compare(presize, other.presize);
+		}
+
+		public String toString () {
+			return String.format("loadFactor %-4s %-9s time %-10.4g bytes/key %.2f", loadFactor,
+				presize ? "presized" : "growing", time, bytes);
+		}
+	}
+
+	static public void main (String[] args) throws Exception {
+		float memoryWeight = 1;
+		ArrayList<String> values = new ArrayList();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-memory"))
+					memoryWeight = Float.parseFloat(args[++i]);
+				else
+					values.add(args[i]);
+			}
+		} catch (RuntimeException ex) {
+			values.clear();
+		}
+		if (values.size() < 2 || values.size() > 4) {
+			System.out.println("Usage: LoadFactorAdvisor [-memory weight] size add=1,hit=6,miss=3,iterate=0 [loadfactor.csv] "
+				+ "[footprint.csv]");
+			System.exit(RegressionGate.USAGE);
+		}
+		int size = Integer.parseInt(values.get(0));
+		float[] mix = parseMix(values.get(1));
+		List<Result> times = JmhResults.read(new File(values.size() > 2 ? values.get(2) : "charts/results/loadfactor.csv"));
+		File footprintFile = new File(values.size() > 3 ? values.get(3) : "charts/results/footprint.csv");
+		List<Result> footprints = footprintFile.exists() ? JmhResults.read(footprintFile) : null;
+		if (footprints == null) System.out.println("No footprint results, using time only: " + footprintFile);
+
+		LoadFactorAdvisor advisor = new LoadFactorAdvisor(times, footprints);
+		advisor.memoryWeight = memoryWeight;
+		LinkedHashMap<String, Config> recommended = advisor.advise(size, mix);
+		System.out.println();
+		for (String implementation : recommended.keySet())
+			System.out.println(implementation + ": " + recommended.get(implementation));
+	}
+}
@@ -0,0 +1,203 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+/** Sweeps the load factor and whether the set is presized, for adds, hits, misses and iteration. The set holds the distinct words
+ * from the word list, the same keys {@link Footprint} measures, so {@link LoadFactorAdvisor} can combine these times with the
+ * footprint results. Every op processes the same number of keys so the scores can be weighted by an op mix. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class LoadFactorBenchmark {
+	public enum Op {
+		add, hit, miss, iterate
+	}
+
+	@Benchmark
+	public Object Cuckoo (CuckooState state, Blackhole blackhole) {
+		ObjectSet set = state.set;
+		String[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case hit:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case miss:
+			String[] misses = state.misses;
+			for (int i = 0, n = misses.length; i < n; i++)
+				blackhole.consume(set.contains(misses[i]));
+			break;
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object HashSet (HashSetState state, Blackhole blackhole) {
+		HashSet set = state.set;
+		String[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case hit:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case miss:
+			String[] misses = state.misses;
+			for (int i = 0, n = misses.length; i < n; i++)
+				blackhole.consume(set.contains(misses[i]));
+			break;
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@Benchmark
+	public Object MerrySet (MerrySetState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		String[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case hit:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case miss:
+			String[] misses = state.misses;
+			for (int i = 0, n = misses.length; i < n; i++)
+				blackhole.consume(set.contains(misses[i]));
+			break;
+		case iterate:
+			for (Object key : set)
+				blackhole.consume(key);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@State(Scope.Thread)
+	static public abstract class SweepState {
+		@Param({"1000", "100000", "1000000"}) public int size; // Words to load from the file.
+		@Param({"-1"}) public int seed = -1; // -1: no random shuffling
+		@Param({"0.5", "0.6", "0.7", "0.75", "0.8", "0.85", "0.9", "0.95"}) public float loadFactor;
+		@Param({"false", "true"}) public boolean presize; // false: grow from the default capacity
+		@Param({"add", "hit", "miss", "iterate"}) public Op op;
+
+		public String[] keys, misses;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			keys = Footprint.distinct(Wordlist.loadWords(size, seed));
+			misses = new String[keys.length];
+			for (int i = 0, n = keys.length; i < n; i++) {
+				misses[i] = keys[i] + '$'; // Words never contain '$'.
+				misses[i].hashCode();
+			}
+			if (op == Op.add) return;
+			clear();
+			for (int i = 0, n = keys.length; i < n; i++)
+				add(keys[i]);
+		}
+
+		@Setup(Level.Invocation)
+		public void reset () {
+			if (op == Op.add) clear();
+		}
+
+		/** Creates a new set with the load factor and, if presizing, enough capacity for all the keys. */
+		abstract void clear ();
+
+		abstract void add (String key);
+	}
+
+	@State(Scope.Thread)
+	static public class CuckooState extends SweepState {
+		public ObjectSet set;
+
+		void clear () {
+			set = new ObjectSet(presize ? keys.length : 51, loadFactor);
+		}
+
+		void add (String key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class HashSetState extends SweepState {
+		public HashSet set;
+
+		void clear () {
+			set = new HashSet(presize ? (int)Math.ceil(keys.length / loadFactor) : 16, loadFactor);
+		}
+
+		void add (String key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends SweepState {
+		public MerrySet set;
+
+		void clear () {
+			set = new MerrySet(presize ? keys.length : 51, loadFactor);
+		}
+
+		void add (String key) {
+			set.add(key);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs benchmarks once for every JDK and JVM configuration in a matrix file, eg to compare GCs, compressed oops and inlining
+ * limits. Each run uses the JMH options from the command line with the JDK and the configuration's flags for its forks, so every
+ * measurement is made in a fresh JVM. Fork 0 is not allowed, it would run every configuration in this JVM.
+ * <p>
+ * The results are merged into the CSV file given with -rff, adding the columns "Param: jdk", "Param: config" and "Param: gc" so
+ * the charts can facet by them. The gc is taken from the -XX:+Use...GC flag, or is "default". The file is rewritten after each
+ * run, so a failed or interrupted run keeps the results so far. Configurations that fail, eg a GC the JDK doesn't have, are
+ * skipped.
+ * <p>
+ * Usage: MatrixRunner matrixFile [JMH args], eg: MatrixRunner matrix.txt -f 1 -wi 5 -i 10 -rf csv -rff matrix.csv
+ * ContainsBenchmark
+ * <p>
+ * The matrix file has a line for each JDK and configuration. Without jdk lines, the JDK running the MatrixRunner is used:
+ *
+ * <pre>
+ * # comment
+ * jdk &lt;name&gt; &lt;java home&gt;
+ * config &lt;name&gt; [JVM flags]
+ * </pre> */
+public class MatrixRunner {
+	static private final Pattern gcFlag = Pattern.compile("-XX:\\+Use(\\w+)GC");
+
+	static public void main (String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage: MatrixRunner matrixFile [JMH args]");
+			System.exit(1);
+		}
+		List<Jdk> jdks = new ArrayList();
+		List<Config> configs = new ArrayList();
+		load(Paths.get(args[0]), jdks, configs);
+
+		Options options = new CommandLineOptions(Benchmarks.addProfilers(Arrays.copyOfRange(args, 1, args.length)));
+		if (options.getForkCount().orElse(1) == 0) throw new IllegalArgumentException("Fork 0 would run every configuration in this JVM.");
+		Path output = Paths.get(options.getResult().orElse("matrix.csv"));
+
+		ArrayList<LinkedHashMap<String, String>> rows = new ArrayList();
+		for (Jdk jdk : jdks) {
+			for (Config config : configs) {
+				System.out.println("Matrix: jdk " + jdk.name + ", config " + config.name + ": " + String.join(" ", config.flags));
+				Path csv = Files.createTempFile("matrix", ".csv");
+				try {
+					OptionsBuilder builder = new OptionsBuilder();
+					builder.parent(options).result(csv.toString()).resultFormat(ResultFormatType.CSV);
+					if (jdk.java != null) builder.jvm(jdk.java);
+					// Prepend so the benchmarks' own @Fork jvmArgsAppend, eg -Xmx, is kept.
+					if (config.flags.length > 0) builder.jvmArgsPrepend(config.flags);
+					new Runner(builder.build()).run();
+					rows.addAll(readCSV(csv, jdk.name, config));
+				} catch (RunnerException ex) {
+					System.out.println("Matrix: jdk " + jdk.name + ", config " + config.name + " failed:");
+					ex.printStackTrace(System.out);
+					continue;
+				} finally {
+					Files.deleteIfExists(csv);
+				}
+				writeCSV(output, rows);
+			}
+		}
+		System.out.println("Matrix results: " + output);
+	}
+
+	static void load (Path file, List<Jdk> jdks, List<Config> configs) throws IOException {
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			String[] tokens = line.split("\\s+");
+			if (tokens.length < 2) throw new IOException("Invalid matrix line " + lineNumber + ": " + line);
+			switch (tokens[0]) {
+			case "jdk":
+				if (tokens.length < 3) throw new IOException("Missing java home, line " + lineNumber + ": " + line);
+				String home = line.split("\\s+", 3)[2].trim(); // The rest of the line, the path may have spaces.
+				File java = new File(home, "bin/java");
+				if (!java.exists() && !new File(home, "bin/java.exe").exists())
+					throw new IOException("java not found, line " + lineNumber + ": " + java);
+				jdks.add(new Jdk(tokens[1], java.getPath()));
+				break;
+			case "config":
+				configs.add(new Config(tokens[1], Arrays.copyOfRange(tokens, 2, tokens.length)));
+				break;
+			default:
+				throw new IOException("Expected jdk or config, line " + lineNumber + ": " + line);
+			}
+		}
+		if (jdks.isEmpty()) jdks.add(new Jdk(System.getProperty("java.specification.version"), null));
+		if (configs.isEmpty()) configs.add(new Config("default", new String[0]));
+	}
+
+	/** Returns the rows of a JMH CSV file with the matrix columns added. */
+	static List<LinkedHashMap<String, String>> readCSV (Path csv, String jdk, Config config) throws IOException {
+		ArrayList<LinkedHashMap<String, String>> rows = new ArrayList();
+		if (!Files.exists(csv) || Files.size(csv) == 0) return rows;
+		List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+		List<String> header = parseLine(lines.get(0));
+		for (int i = 1, n = lines.size(); i < n; i++) {
+			if (lines.get(i).isEmpty()) continue;
+			List<String> values = parseLine(lines.get(i));
+			LinkedHashMap<String, String> row = new LinkedHashMap();
+			for (int ii = 0, nn = Math.min(header.size(), values.size()); ii < nn; ii++)
+				row.put(header.get(ii), values.get(ii));
+			row.put("Param: jdk", jdk);
+			row.put("Param: config", config.name);
+			row.put("Param: gc", config.gc);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	/** Writes the rows with the union of their columns, leaving a cell empty where a row doesn't have the column. */
+	static void writeCSV (Path output, List<LinkedHashMap<String, String>> rows) throws IOException {
+		LinkedHashSet<String> columns = new LinkedHashSet();
+		for (LinkedHashMap<String, String> row : rows)
+			columns.addAll(row.keySet());
+		StringBuilder buffer = new StringBuilder(1024);
+		appendLine(buffer, columns);
+		ArrayList<String> values = new ArrayList();
+		for (LinkedHashMap<String, String> row : rows) {
+			values.clear();
+			for (String column : columns) {
+				String value = row.get(column);
+				values.add(value == null ? "" : value);
+			}
+			appendLine(buffer, values);
+		}
+		Path parent = output.toAbsolutePath().getParent();
+		if (parent != null) Files.createDirectories(parent);
+		Files.write(output, buffer.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	static private void appendLine (StringBuilder buffer, Iterable<String> values) {
+		boolean first = true;
+		for (String value : values) {
+			if (!first) buffer.append(',');
+			first = false;
+			buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+		}
+		buffer.append('\n');
+	}
+
+	/** Splits a CSV line, removing quotes. */
+	static List<String> parseLine (String line) {
+		ArrayList<String> values = new ArrayList();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0, n = line.length(); i < n; i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"')
+					value.append(c);
+				else if (i + 1 < n && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else
+					quoted = false;
+			} else if (c == '"')
+				quoted = true;
+			else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else
+				value.append(c);
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	static class Jdk {
+		final String name, java;
+
+		Jdk (String name, String java) {
+			this.name = name;
+			this.java = java;
+		}
+	}
+
+	static class Config {
+		final String name, gc;
+		final String[] flags;
+
+		Config (String name, String[] flags) {
+			this.name = name;
+			this.flags = flags;
+			String gc = "default";
+			for (String flag : flags) {
+				Matcher matcher = gcFlag.matcher(flag);
+				if (matcher.matches()) gc = matcher.group(1);
+			}
+			this.gc = gc;
+		}
+	}
+}
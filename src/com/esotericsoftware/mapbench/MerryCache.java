@@ -0,0 +1,224 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A fixed capacity cache using the {@link MerrySet} table design: linear probing with backward-shift removal and Fibonacci
+ * hashing. When full, putting a new key evicts an entry using CLOCK (second chance): a hand sweeps the table, clearing each
+ * entry's reference bit, and evicts the first entry whose bit was already clear. Lookups set the bit, so recently used entries
+ * survive a sweep. Evicting uses backward-shift removal, so clusters stay compact and there are no tombstones.
+ * <p>
+ * The hand doesn't move to the next slot, it steps by an odd stride of about 0.618 times the table size, which still
+ * visits every slot once per revolution. With linear probing a hand that moves slot by slot leaves the table nearly empty behind
+ * it while new keys land everywhere, so the slots ahead of the hand fill up and clusters grow very long.
+ * <p>
+ * The table is allocated once and never grows, so no allocation is done per entry, unlike a LinkedHashMap LRU which allocates a
+ * node per entry. Null keys and values are not allowed. Hits, misses and evictions are counted. */
+public class MerryCache<K, V> {
+	public int size;
+
+	final int capacity;
+	K[] keyTable;
+	V[] valueTable;
+	boolean[] referenced;
+	int hand, stride;
+
+	/** See {@link MerrySet#shift}. */
+	protected int shift;
+	/** See {@link MerrySet#mask}. */
+	protected int mask;
+
+	long hits, misses, evictions;
+
+	/** Creates a new cache with a load factor of 0.8.
+	 * @param capacity The maximum number of entries. */
+	public MerryCache (int capacity) {
+		this(capacity, 0.8f);
+	}
+
+	/** @param capacity The maximum number of entries.
+	 * @param loadFactor The table is sized so it is at most this full when the cache holds capacity entries. */
+	public MerryCache (int capacity, float loadFactor) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		int tableSize = MathUtils.nextPowerOfTwo((int)Math.ceil(capacity / loadFactor));
+		if (tableSize > 1 << 30) throw new IllegalArgumentException("capacity is too large: " + capacity);
+
+		this.capacity = capacity;
+		mask = tableSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		keyTable = (K[])(new Object[tableSize]);
+		valueTable = (V[])(new Object[tableSize]);
+		referenced = new boolean[tableSize];
+		stride = (int)(tableSize * 0.6180339887498949) | 1;
+	}
+
+	/** Returns an index >= 0 and <= {@link #mask} for the specified {@code item}. See {@link MerrySet#place(Object)}. */
+	protected int place (K item) {
+		return (int)(item.hashCode() * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Returns the index of the key if already present, else -(index + 1) for the next empty index. */
+	int locateKey (K key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		K[] keyTable = this.keyTable;
+		for (int i = place(key);; i = i + 1 & mask) {
+			K other = keyTable[i];
+			if (other == null) return -(i + 1); // Empty space is available.
+			if (other.equals(key)) return i; // Same key was found.
+		}
+	}
+
+	/** Returns the value for the key and marks it as recently used, or returns null if the key is not in the cache. Counts a hit
+	 * or a miss. */
+	public V get (K key) {
+		int i = locateKey(key);
+		if (i < 0) {
+			misses++;
+			return null;
+		}
+		hits++;
+		referenced[i] = true;
+		return valueTable[i];
+	}
+
+	/** Returns true if the key is in the cache, without marking it as used or counting a hit or miss. */
+	public boolean containsKey (K key) {
+		return locateKey(key) >= 0;
+	}
+
+	/** Puts the key and value, evicting an entry if the cache is full and the key is new. A new entry is not marked as used, so
+	 * keys that are only seen once are evicted first. */
+	public void put (K key, V value) {
+		if (value == null) throw new IllegalArgumentException("value cannot be null.");
+		int i = locateKey(key);
+		if (i >= 0) { // Existing key was found.
+			valueTable[i] = value;
+			referenced[i] = true;
+			return;
+		}
+		if (size == capacity) {
+			evict();
+			i = locateKey(key); // Evicting may have moved the empty slot.
+		}
+		i = -(i + 1); // Empty space was found.
+		keyTable[i] = key;
+		valueTable[i] = value;
+		referenced[i] = false;
+		size++;
+	}
+
+	/** Removes an entry using CLOCK. */
+	private void evict () {
+		K[] keyTable = this.keyTable;
+		boolean[] referenced = this.referenced;
+		int mask = this.mask, stride = this.stride;
+		for (int i = hand;; i = i + stride & mask) {
+			if (keyTable[i] == null) continue;
+			if (referenced[i]) {
+				referenced[i] = false; // Second chance.
+				continue;
+			}
+			removeIndex(i);
+			hand = i; // A key may have shifted back into this slot and hasn't been considered yet.
+			evictions++;
+			return;
+		}
+	}
+
+	/** Returns the value for the removed key, or null if the key is not in the cache. */
+	public V remove (K key) {
+		int i = locateKey(key);
+		if (i < 0) return null;
+		V oldValue = valueTable[i];
+		removeIndex(i);
+		return oldValue;
+	}
+
+	/** Removes the entry at the index using backward-shift, moving later entries in the cluster back to fill the gap. */
+	void removeIndex (int i) {
+		K[] keyTable = this.keyTable;
+		V[] valueTable = this.valueTable;
+		boolean[] referenced = this.referenced;
+		int mask = this.mask, next = i + 1 & mask;
+		K key;
+		while ((key = keyTable[next]) != null) {
+			// Move the entry into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				keyTable[i] = key;
+				valueTable[i] = valueTable[next];
+				referenced[i] = referenced[next];
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		keyTable[i] = null;
+		valueTable[i] = null;
+		size--;
+	}
+
+	/** Removes all entries. The counters are not reset. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		Arrays.fill(keyTable, null);
+		Arrays.fill(valueTable, null);
+		hand = 0;
+	}
+
+	/** Returns the maximum number of entries. */
+	public int getCapacity () {
+		return capacity;
+	}
+
+	public long getHits () {
+		return hits;
+	}
+
+	public long getMisses () {
+		return misses;
+	}
+
+	public long getEvictions () {
+		return evictions;
+	}
+
+	/** Returns hits / (hits + misses), or 0 if there have been no lookups. */
+	public double getHitRate () {
+		long total = hits + misses;
+		return total == 0 ? 0 : hits / (double)total;
+	}
+
+	public void resetCounters () {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	public String toString () {
+		return "MerryCache[size=" + size + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses + ", evictions="
+			+ evictions + "]";
+	}
+}
@@ -0,0 +1,211 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** An unordered set of primitive long keys, the same as {@link MerrySet} but with a {@code long[]} table so keys aren't boxed.
+ * It uses Fibonacci hashing, linear probing and backward shift removal. 0 marks an empty slot in the table, so the 0 key is
+ * tracked separately. */
+public class MerryLongSet {
+	public int size;
+
+	long[] keyTable;
+	boolean hasZeroKey;
+
+	float loadFactor;
+	int threshold;
+	/** See {@link MerrySet#shift}. */
+	protected int shift;
+	/** See {@link MerrySet#mask}. */
+	protected int mask;
+
+	/** Creates a new set with an initial capacity of 51 and a load factor of 0.8. */
+	public MerryLongSet () {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new set with a load factor of 0.8.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public MerryLongSet (int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/** Creates a new set with the specified initial capacity and load factor. This set will hold initialCapacity items before
+	 * growing the backing table.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public MerryLongSet (int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		initialCapacity = MathUtils.nextPowerOfTwo((int)Math.ceil(Math.max(1, initialCapacity) / loadFactor));
+		if (initialCapacity > 1 << 30) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		this.loadFactor = loadFactor;
+
+		threshold = (int)(initialCapacity * loadFactor);
+		mask = initialCapacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		keyTable = new long[initialCapacity];
+	}
+
+	/** Returns an index >= 0 and <= {@link #mask} for the key, using Fibonacci hashing. See {@link MerrySet#place(Object)}. */
+	protected int place (long key) {
+		return (int)(key * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Returns the index of the key if already present, else -(index + 1) for the next empty index. The key must not be 0. */
+	int locateKey (long key) {
+		long[] keyTable = this.keyTable;
+		for (int i = place(key);; i = i + 1 & mask) {
+			long other = keyTable[i];
+			if (other == 0) return -(i + 1); // Empty space is available.
+			if (other == key) return i; // Same key was found.
+		}
+	}
+
+	/** Returns true if the key was not already in the set. */
+	public boolean add (long key) {
+		if (key == 0) {
+			if (hasZeroKey) return false;
+			hasZeroKey = true;
+			size++;
+			return true;
+		}
+		int i = locateKey(key);
+		if (i >= 0) return false; // Existing key was found.
+		keyTable[-(i + 1)] = key; // Empty space was found.
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return true;
+	}
+
+	/** Returns true if the key was removed. */
+	public boolean remove (long key) {
+		if (key == 0) {
+			if (!hasZeroKey) return false;
+			hasZeroKey = false;
+			size--;
+			return true;
+		}
+		int i = locateKey(key);
+		if (i < 0) return false;
+		long[] keyTable = this.keyTable;
+		int mask = this.mask, next = i + 1 & mask;
+		while ((key = keyTable[next]) != 0) {
+			// Move the key into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				keyTable[i] = key;
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		keyTable[i] = 0;
+		size--;
+		return true;
+	}
+
+	public boolean contains (long key) {
+		if (key == 0) return hasZeroKey;
+		return locateKey(key) >= 0;
+	}
+
+	/** Returns true if the set has one or more items. */
+	public boolean notEmpty () {
+		return size > 0;
+	}
+
+	/** Returns true if the set is empty. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Clears the set, leaving the backing array at the current capacity. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		hasZeroKey = false;
+		Arrays.fill(keyTable, 0);
+	}
+
+	/** Increases the size of the backing array to accommodate the specified number of additional items / loadFactor. Useful
+	 * before adding many items to avoid multiple backing array resizes. */
+	public void ensureCapacity (int additionalCapacity) {
+		int tableSize = MathUtils.nextPowerOfTwo((int)Math.ceil((size + additionalCapacity) / loadFactor));
+		if (keyTable.length < tableSize) resize(tableSize);
+	}
+
+	private void resize (int newSize) {
+		int oldCapacity = keyTable.length;
+		threshold = (int)(newSize * loadFactor);
+		mask = newSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+
+		long[] oldKeyTable = keyTable;
+		long[] keyTable = new long[newSize];
+		this.keyTable = keyTable;
+
+		for (int i = 0; i < oldCapacity; i++) {
+			long key = oldKeyTable[i];
+			if (key == 0) continue;
+			int slot = place(key);
+			while (keyTable[slot] != 0)
+				slot = slot + 1 & mask;
+			keyTable[slot] = key;
+		}
+	}
+
+	public int hashCode () {
+		int h = size;
+		long[] keyTable = this.keyTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			long key = keyTable[i];
+			if (key != 0) h += (int)(key ^ key >>> 32);
+		}
+		return h;
+	}
+
+	public boolean equals (Object obj) {
+		if (!(obj instanceof MerryLongSet)) return false;
+		MerryLongSet other = (MerryLongSet)obj;
+		if (other.size != size || other.hasZeroKey != hasZeroKey) return false;
+		long[] keyTable = this.keyTable;
+		for (int i = 0, n = keyTable.length; i < n; i++)
+			if (keyTable[i] != 0 && !other.contains(keyTable[i])) return false;
+		return true;
+	}
+
+	public String toString () {
+		if (size == 0) return "[]";
+		StringBuilder buffer = new StringBuilder(32);
+		buffer.append('[');
+		if (hasZeroKey) buffer.append('0');
+		long[] keyTable = this.keyTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			long key = keyTable[i];
+			if (key == 0) continue;
+			if (buffer.length() > 1) buffer.append(", ");
+			buffer.append(key);
+		}
+		buffer.append(']');
+		return buffer.toString();
+	}
+}
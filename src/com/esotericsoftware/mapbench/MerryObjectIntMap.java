@@ -0,0 +1,401 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Collections;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** An unordered map where the keys are objects and the values are unboxed ints, with the same design as {@link MerrySet}: linear
+ * probing with backward-shift removal and Fibonacci hashing. Null keys are not allowed. No allocation is done except when growing
+ * the table size.
+ * <p>
+ * {@link #getAndIncrement(Object, int, int)}, {@link #getOrDefault(Object, int)} and {@link #putIfAbsent(Object, int)} find the
+ * key or the empty slot for it with a single probe, so counting, eg word frequencies, doesn't need a get then a put. */
+public class MerryObjectIntMap<K> implements Iterable<MerryObjectIntMap.Entry<K>> {
+	public int size;
+
+	K[] keyTable;
+	int[] valueTable;
+
+	float loadFactor;
+	int threshold;
+	/** See {@link MerrySet#shift}. */
+	protected int shift;
+	/** See {@link MerrySet#mask}. */
+	protected int mask;
+
+	private Entries iterator1, iterator2;
+
+	/** Creates a new map with an initial capacity of 51 and a load factor of 0.8. */
+	public MerryObjectIntMap () {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new map with a load factor of 0.8.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public MerryObjectIntMap (int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/** Creates a new map with the specified initial capacity and load factor. This map will hold initialCapacity items before
+	 * growing the backing table.
+	 * @param initialCapacity If not a power of two, it is increased to the next nearest power of two. */
+	public MerryObjectIntMap (int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		initialCapacity = MathUtils.nextPowerOfTwo((int)Math.ceil(Math.max(1, initialCapacity) / loadFactor));
+		if (initialCapacity > 1 << 30) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		this.loadFactor = loadFactor;
+
+		threshold = (int)(initialCapacity * loadFactor);
+		mask = initialCapacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		keyTable = (K[])(new Object[initialCapacity]);
+		valueTable = new int[initialCapacity];
+	}
+
+	/** Creates a new map identical to the specified map. */
+	public MerryObjectIntMap (MerryObjectIntMap<? extends K> map) {
+		this((int)Math.floor(map.keyTable.length * map.loadFactor), map.loadFactor);
+		System.arraycopy(map.keyTable, 0, keyTable, 0, map.keyTable.length);
+		System.arraycopy(map.valueTable, 0, valueTable, 0, map.valueTable.length);
+		size = map.size;
+	}
+
+	/** Returns an index >= 0 and <= {@link #mask} for the specified {@code item}. See {@link MerrySet#place(Object)}. */
+	protected int place (K item) {
+		return (int)(item.hashCode() * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Returns the index of the key if already present, else -(index + 1) for the next empty index. */
+	int locateKey (K key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		K[] keyTable = this.keyTable;
+		for (int i = place(key);; i = i + 1 & mask) {
+			K other = keyTable[i];
+			if (other == null) return -(i + 1); // Empty space is available.
+			if (other.equals(key)) return i; // Same key was found.
+		}
+	}
+
+	public void put (K key, int value) {
+		int i = locateKey(key);
+		if (i >= 0) { // Existing key was found.
+			valueTable[i] = value;
+			return;
+		}
+		i = -(i + 1); // Empty space was found.
+		keyTable[i] = key;
+		valueTable[i] = value;
+		if (++size >= threshold) resize(keyTable.length << 1);
+	}
+
+	/** Puts the key and value if the key is not in the map.
+	 * @return true if the key was not already in the map. */
+	public boolean putIfAbsent (K key, int value) {
+		int i = locateKey(key);
+		if (i >= 0) return false;
+		i = -(i + 1);
+		keyTable[i] = key;
+		valueTable[i] = value;
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return true;
+	}
+
+	public void putAll (MerryObjectIntMap<? extends K> map) {
+		ensureCapacity(map.size);
+		K[] keyTable = map.keyTable;
+		int[] valueTable = map.valueTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			K key = keyTable[i];
+			if (key != null) put(key, valueTable[i]);
+		}
+	}
+
+	/** Skips checks for existing keys, doesn't increment size. */
+	private void putResize (K key, int value) {
+		K[] keyTable = this.keyTable;
+		for (int i = place(key);; i = (i + 1) & mask) {
+			if (keyTable[i] == null) {
+				keyTable[i] = key;
+				valueTable[i] = value;
+				return;
+			}
+		}
+	}
+
+	/** Returns the value for the specified key, or the default value if the key is not in the map. */
+	public int getOrDefault (K key, int defaultValue) {
+		int i = locateKey(key);
+		return i < 0 ? defaultValue : valueTable[i];
+	}
+
+	/** Returns the key's current value and increments the stored value. If the key is not in the map, defaultValue + increment is
+	 * put into the map and defaultValue is returned. */
+	public int getAndIncrement (K key, int defaultValue, int increment) {
+		int i = locateKey(key);
+		if (i >= 0) { // Existing key was found.
+			int oldValue = valueTable[i];
+			valueTable[i] += increment;
+			return oldValue;
+		}
+		i = -(i + 1); // Empty space was found.
+		keyTable[i] = key;
+		valueTable[i] = defaultValue + increment;
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return defaultValue;
+	}
+
+	/** Returns the key's current value, or 0 if the key is not in the map, and increments the stored value. */
+	public int getAndIncrement (K key, int increment) {
+		return getAndIncrement(key, 0, increment);
+	}
+
+	/** Returns the value for the removed key, or the default value if the key is not in the map. */
+	public int remove (K key, int defaultValue) {
+		int i = locateKey(key);
+		if (i < 0) return defaultValue;
+		K[] keyTable = this.keyTable;
+		int[] valueTable = this.valueTable;
+		int oldValue = valueTable[i];
+		int mask = this.mask, next = i + 1 & mask;
+		while ((key = keyTable[next]) != null) {
+			// Move the entry into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				keyTable[i] = key;
+				valueTable[i] = valueTable[next];
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		keyTable[i] = null;
+		size--;
+		return oldValue;
+	}
+
+	public boolean containsKey (K key) {
+		return locateKey(key) >= 0;
+	}
+
+	/** Returns true if the map has one or more items. */
+	public boolean notEmpty () {
+		return size > 0;
+	}
+
+	/** Returns true if the map is empty. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Clears the map, leaving the backing arrays at the current capacity. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		Arrays.fill(keyTable, null);
+	}
+
+	/** Increases the size of the backing array to accommodate the specified number of additional items. Useful before adding many
+	 * items to avoid multiple backing array resizes. */
+	public void ensureCapacity (int additionalCapacity) {
+		if (additionalCapacity < 0) throw new IllegalArgumentException("additionalCapacity must be >= 0: " + additionalCapacity);
+		int sizeNeeded = size + additionalCapacity;
+		if (sizeNeeded >= threshold) resize(MathUtils.nextPowerOfTwo((int)Math.ceil(sizeNeeded / loadFactor)));
+	}
+
+	private void resize (int newSize) {
+		int oldCapacity = keyTable.length;
+		threshold = (int)(newSize * loadFactor);
+		mask = newSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		K[] oldKeyTable = keyTable;
+		int[] oldValueTable = valueTable;
+
+		keyTable = (K[])(new Object[newSize]);
+		valueTable = new int[newSize];
+
+		if (size > 0) {
+			for (int i = 0; i < oldCapacity; i++) {
+				K key = oldKeyTable[i];
+				if (key != null) putResize(key, oldValueTable[i]);
+			}
+		}
+	}
+
+	public int hashCode () {
+		int h = size;
+		K[] keyTable = this.keyTable;
+		int[] valueTable = this.valueTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			K key = keyTable[i];
+			if (key != null) h += key.hashCode() ^ valueTable[i];
+		}
+		return h;
+	}
+
+	public boolean equals (Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof MerryObjectIntMap)) return false;
+		MerryObjectIntMap other = (MerryObjectIntMap)obj;
+		if (other.size != size) return false;
+		K[] keyTable = this.keyTable;
+		int[] valueTable = this.valueTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			K key = keyTable[i];
+			if (key == null) continue;
+			int otherIndex = other.locateKey(key);
+			if (otherIndex < 0 || other.valueTable[otherIndex] != valueTable[i]) return false;
+		}
+		return true;
+	}
+
+	public String toString () {
+		if (size == 0) return "{}";
+		java.lang.StringBuilder buffer = new java.lang.StringBuilder(32);
+		buffer.append('{');
+		K[] keyTable = this.keyTable;
+		int[] valueTable = this.valueTable;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			K key = keyTable[i];
+			if (key == null) continue;
+			if (buffer.length() > 1) buffer.append(", ");
+			buffer.append(key == this ? "(this)" : key);
+			buffer.append('=');
+			buffer.append(valueTable[i]);
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+
+	/** Returns an iterator for the entries in the map. Remove is supported.
+	 * <p>
+	 * If {@link Collections#allocateIterators} is false, the same iterator instance is returned each time this method is called.
+	 * Use the {@link Entries} constructor for nested or multithreaded iteration. */
+	public Entries<K> iterator () {
+		if (Collections.allocateIterators) return new Entries(this);
+		if (iterator1 == null) {
+			iterator1 = new Entries(this);
+			iterator2 = new Entries(this);
+		}
+		if (!iterator1.valid) {
+			iterator1.reset();
+			iterator1.valid = true;
+			iterator2.valid = false;
+			return iterator1;
+		}
+		iterator2.reset();
+		iterator2.valid = true;
+		iterator1.valid = false;
+		return iterator2;
+	}
+
+	static public class Entry<K> {
+		public K key;
+		public int value;
+
+		public String toString () {
+			return key + "=" + value;
+		}
+	}
+
+	/** The same entry instance is returned by each call to {@link #next()}. */
+	static public class Entries<K> implements Iterable<Entry<K>>, Iterator<Entry<K>> {
+		public boolean hasNext;
+
+		final MerryObjectIntMap<K> map;
+		final Entry<K> entry = new Entry();
+		int nextIndex, currentIndex;
+		boolean valid = true;
+
+		public Entries (MerryObjectIntMap<K> map) {
+			this.map = map;
+			reset();
+		}
+
+		public void reset () {
+			currentIndex = -1;
+			nextIndex = -1;
+			findNextIndex();
+		}
+
+		private void findNextIndex () {
+			hasNext = false;
+			K[] keyTable = map.keyTable;
+			for (int n = keyTable.length; ++nextIndex < n;) {
+				if (keyTable[nextIndex] != null) {
+					hasNext = true;
+					break;
+				}
+			}
+		}
+
+		public void remove () {
+			if (currentIndex < 0) throw new IllegalStateException("next must be called before remove.");
+			K[] keyTable = map.keyTable;
+			int[] valueTable = map.valueTable;
+			int mask = map.mask;
+			int loc = currentIndex, nl = (loc + 1 & mask), first = -1;
+			K key;
+			while ((key = keyTable[nl]) != null) {
+				if ((nl - map.place(key) & mask) >= (nl - loc & mask)) {
+					if (first == -1) first = nl;
+					keyTable[loc] = key;
+					valueTable[loc] = valueTable[nl];
+					loc = nl;
+				}
+				nl = nl + 1 & mask;
+			}
+			keyTable[loc] = null;
+			// An entry that moved back into the current index from later in the table hasn't been returned yet.
+			if (first > currentIndex) {
+				nextIndex = currentIndex;
+				hasNext = true;
+			}
+			currentIndex = -1;
+			map.size--;
+		}
+
+		public boolean hasNext () {
+			if (!valid) throw new GdxRuntimeException("#iterator() cannot be used nested.");
+			return hasNext;
+		}
+
+		public Entry<K> next () {
+			if (!hasNext) throw new NoSuchElementException();
+			if (!valid) throw new GdxRuntimeException("#iterator() cannot be used nested.");
+			entry.key = map.keyTable[nextIndex];
+			entry.value = map.valueTable[nextIndex];
+			currentIndex = nextIndex;
+			findNextIndex();
+			return entry;
+		}
+
+		public Entries<K> iterator () {
+			return this;
+		}
+	}
+}
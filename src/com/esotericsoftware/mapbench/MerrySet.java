@@ -4,6 +4,7 @@ package com.esotericsoftware.mapbench;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
@@ -86,7 +87,7 @@ public class MerrySet<T> implements Iterable<T> {
 
 	/** Creates a new set identical to the specified set. */
 	public MerrySet (MerrySet<? extends T> set) {
-		this((int)Math.ceil(set.keyTable.length * set.loadFactor), set.loadFactor);
+		this((int)Math.floor(set.keyTable.length * set.loadFactor), set.loadFactor);
 		System.arraycopy(set.keyTable, 0, keyTable, 0, set.keyTable.length);
 		size = set.size;
 	}
@@ -132,6 +133,33 @@ public class MerrySet<T> implements Iterable<T> {
 		return true;
 	}
 
+	/** Returns the key in the set that is equal to the specified key, or adds the specified key and returns it. This finds the key
+	 * or the empty slot for it with a single probe, so it is faster than {@link #get(Object)} then {@link #add(Object)}, eg to
+	 * intern strings or value objects. */
+	public T addOrGet (T key) {
+		int i = locateKey(key);
+		if (i >= 0) return keyTable[i]; // Existing key was found.
+		i = -(i + 1); // Empty space was found.
+		keyTable[i] = key;
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return key;
+	}
+
+	/** Returns the key in the set that is equal to the specified key, or adds the key created by the factory and returns it. The
+	 * factory is only called when the key is not in the set, with a single probe like {@link #addOrGet(Object)}.
+	 * @param factory Returns the instance to store, which must be equal to and have the same hashcode as the key it is given, eg a
+	 *           trimmed copy. It must not modify this set. */
+	public T addIfAbsent (T key, Function<? super T, ? extends T> factory) {
+		int i = locateKey(key);
+		if (i >= 0) return keyTable[i]; // Existing key was found.
+		T value = factory.apply(key);
+		if (value == null) throw new IllegalArgumentException("factory returned null for key: " + key);
+		i = -(i + 1); // Empty space was found.
+		keyTable[i] = value;
+		if (++size >= threshold) resize(keyTable.length << 1);
+		return value;
+	}
+
 	public void addAll (Array<? extends T> array) {
 		addAll(array.items, 0, array.size);
 	}
@@ -179,10 +207,13 @@ public class MerrySet<T> implements Iterable<T> {
 		int i = locateKey(key);
 		if (i < 0) return false;
 		T[] keyTable = this.keyTable;
-		int next = i + 1 & mask;
-		while ((key = keyTable[next]) != null && next != place(key)) {
-			keyTable[i] = key;
-			i = next;
+		int mask = this.mask, next = i + 1 & mask;
+		while ((key = keyTable[next]) != null) {
+			// Move the key into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				keyTable[i] = key;
+				i = next;
+			}
 			next = next + 1 & mask;
 		}
 		keyTable[i] = null;
@@ -190,6 +221,53 @@ public class MerrySet<T> implements Iterable<T> {
 		return true;
 	}
 
+	/** Returns the index of the first key at or after the index, or -1 if there are no more keys. With {@link #keyAt(int)} and
+	 * {@link #removeAt(int)} this iterates the keys without allocating, and any number of iterations can be nested or run on
+	 * different threads while the set isn't modified:
+	 *
+	 * <pre>
+	 * for (int i = set.nextOccupied(0); i != -1; i = set.nextOccupied(i + 1)) {
+	 * 	T key = set.keyAt(i);
+	 * }
+	 * </pre> */
+	public int nextOccupied (int index) {
+		T[] keyTable = this.keyTable;
+		for (int n = keyTable.length; index < n; index++)
+			if (keyTable[index] != null) return index;
+		return -1;
+	}
+
+	/** Returns the key at the index, or null if the index is empty. */
+	public T keyAt (int index) {
+		return keyTable[index];
+	}
+
+	/** Removes the key at the index. Keys after it may be shifted back to fill the gap, so iteration continues with
+	 * {@code i = set.nextOccupied(set.removeAt(i))}. When a cluster of keys wraps around the end of the table, a key from the
+	 * start of the table that was already iterated can be shifted to the end and iterated again, the same as with
+	 * {@link ObjectSetIterator#remove()}.
+	 * @return The index to continue iterating from: the index itself if a key that hasn't been iterated yet was moved into it,
+	 *         otherwise index + 1. */
+	public int removeAt (int index) {
+		T[] keyTable = this.keyTable;
+		if (keyTable[index] == null) throw new IllegalArgumentException("index has no key: " + index);
+		int mask = this.mask, next = index + 1 & mask, first = -1, i = index;
+		T key;
+		while ((key = keyTable[next]) != null) {
+			// Move the key into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				if (first == -1) first = next;
+				keyTable[i] = key;
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		keyTable[i] = null;
+		size--;
+		// A key moved back into the index from later in the table hasn't been iterated yet.
+		return first > index ? index : index + 1;
+	}
+
 	/** Returns true if the set has one or more items. */
 	public boolean notEmpty () {
 		return size > 0;
@@ -315,7 +393,7 @@ public class MerrySet<T> implements Iterable<T> {
 	/** Returns an iterator for the keys in the set. Remove is supported.
 	 * <p>
 	 * If {@link Collections#allocateIterators} is false, the same iterator instance is returned each time this method is called.
-	 * Use the {@link ObjectSetIterator} constructor for nested or multithreaded iteration. */
+	 * Use the {@link ObjectSetIterator} constructor or {@link #nextOccupied(int)} for nested or multithreaded iteration. */
 	public ObjectSetIterator<T> iterator () {
 		if (Collections.allocateIterators) return new ObjectSetIterator(this);
 		if (iterator1 == null) {
@@ -372,19 +450,12 @@ public class MerrySet<T> implements Iterable<T> {
 		public void remove () {
 			if (currentIndex < 0) throw new IllegalStateException("next must be called before remove.");
 
-			K[] keyTable = set.keyTable;
-			int mask = set.mask;
-			int loc = currentIndex, nl = (loc + 1 & mask);
-			K key;
-			while ((key = keyTable[nl]) != null && nl != set.place(key)) {
-				keyTable[loc] = key;
-				loc = nl;
-				nl = loc + 1 & mask;
+			// A key that moved back into the current index from later in the table hasn't been returned yet.
+			if (set.removeAt(currentIndex) == currentIndex) {
+				nextIndex = currentIndex;
+				hasNext = true;
 			}
-			if (loc != currentIndex) --nextIndex;
-			keyTable[loc] = null;
 			currentIndex = -1;
-			set.size--;
 		}
 
 		public boolean hasNext () {
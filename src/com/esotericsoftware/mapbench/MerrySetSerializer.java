@@ -0,0 +1,284 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Writes and reads a {@link MerrySet} with its table layout, so reading fills the table directly without calling hashCode() or
+ * probing. The header has the capacity, load factor and size, the shift and mask follow from the capacity. The slots are written
+ * in order as runs: the number of empty slots, the number of keys that follow, then each key prefixed by its length. Keys are
+ * encoded with a {@link KeyCodec}. Data is streamed through a direct buffer in chunks of {@link #BUFFER_SIZE}.
+ * <p>
+ * The layout is only valid if the keys' hashcodes are the same in the reading process, as they are for String, Long and Integer
+ * but not eg for enums or keys using identity hashcodes, and if the set uses the default {@link MerrySet#place(Object)}. Not
+ * thread safe, the buffer is reused for each write and read. */
+public class MerrySetSerializer<T> {
+	static public final int BUFFER_SIZE = 1 << 20;
+	/** The largest key in bytes. Reading a corrupt length larger than this throws IOException rather than allocating a buffer
+	 * for it. */
+	static public final int MAX_KEY_LENGTH = 1 << 26;
+	static final int MAGIC = 0x4D525953, VERSION = 1; // "MRYS"
+
+	final KeyCodec<T> codec;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	public MerrySetSerializer (KeyCodec<T> codec) {
+		if (codec == null) throw new IllegalArgumentException("codec cannot be null.");
+		this.codec = codec;
+	}
+
+	public void write (MerrySet<T> set, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(set, channel);
+		}
+	}
+
+	public void write (MerrySet<T> set, WritableByteChannel channel) throws IOException {
+		KeyCodec<T> codec = this.codec;
+		T[] keyTable = set.keyTable;
+		int capacity = keyTable.length;
+		ByteBuffer buffer = this.buffer;
+		buffer.clear();
+		buffer.putInt(MAGIC);
+		buffer.put((byte)VERSION);
+		buffer.putInt(capacity);
+		buffer.putFloat(set.loadFactor);
+		buffer.putInt(set.size);
+
+		for (int i = 0; i < capacity;) {
+			int start = i;
+			while (i < capacity && keyTable[i] == null)
+				i++;
+			int gap = i - start;
+			start = i;
+			while (i < capacity && keyTable[i] != null)
+				i++;
+			buffer = ensure(channel, 10);
+			writeVarint(buffer, gap);
+			writeVarint(buffer, i - start);
+			for (int ii = start; ii < i; ii++) {
+				T key = keyTable[ii];
+				int length = codec.length(key);
+				if (length > MAX_KEY_LENGTH) throw new IllegalArgumentException("Key is too large at slot " + ii + ": " + length);
+				buffer = ensure(channel, 5 + length);
+				writeVarint(buffer, length);
+				int end = buffer.position() + length;
+				codec.write(key, buffer);
+				if (buffer.position() != end)
+					throw new IllegalStateException("KeyCodec wrote " + (buffer.position() - end + length) + " bytes, expected: " + length);
+			}
+		}
+		flush(channel);
+	}
+
+	/** Returns the buffer after writing its contents to the channel if it has less than the specified bytes remaining. */
+	private ByteBuffer ensure (WritableByteChannel channel, int bytes) throws IOException {
+		ByteBuffer buffer = this.buffer;
+		if (buffer.remaining() >= bytes) return buffer;
+		flush(channel);
+		if (buffer.capacity() < bytes) this.buffer = buffer = ByteBuffer.allocateDirect(bytes);
+		return buffer;
+	}
+
+	private void flush (WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = this.buffer;
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	public MerrySet<T> read (Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	public MerrySet<T> read (ReadableByteChannel channel) throws IOException {
+		KeyCodec<T> codec = this.codec;
+		buffer.clear().flip();
+		ByteBuffer buffer = require(channel, 17);
+		if (buffer.getInt() != MAGIC) throw new IOException("Not a MerrySet.");
+		int version = buffer.get();
+		if (version != VERSION) throw new IOException("Unsupported version: " + version);
+		int capacity = buffer.getInt(), size;
+		float loadFactor = buffer.getFloat();
+		size = buffer.getInt();
+		if (capacity < 1 || capacity > 1 << 30 || Integer.bitCount(capacity) != 1) throw new IOException("Invalid capacity: " + capacity);
+		if (size < 0 || size >= capacity) throw new IOException("Invalid size: " + size);
+
+		MerrySet<T> set;
+		try {
+			set = new MerrySet((int)Math.floor(capacity * loadFactor), loadFactor);
+		} catch (IllegalArgumentException ex) {
+			throw new IOException("Invalid load factor: " + loadFactor, ex);
+		}
+		if (set.keyTable.length != capacity) throw new IOException("Invalid load factor for capacity: " + loadFactor);
+		T[] keyTable = set.keyTable;
+		int count = 0;
+		for (int i = 0; i < capacity;) {
+			i += readVarint(channel);
+			int run = readVarint(channel);
+			if (i < 0 || run < 0 || run > capacity - i) throw new IOException("Invalid run at slot " + i + ": " + run);
+			count += run;
+			for (int n = i + run; i < n; i++) {
+				int length = readVarint(channel);
+				if (length < 0 || length > MAX_KEY_LENGTH) throw new IOException("Invalid key length at slot " + i + ": " + length);
+				buffer = require(channel, length);
+				int end = buffer.position() + length;
+				T key = codec.read(buffer, length);
+				if (key == null) throw new IOException("KeyCodec read a null key.");
+				if (buffer.position() != end) throw new IOException("KeyCodec read the wrong number of bytes at slot " + i);
+				keyTable[i] = key;
+			}
+		}
+		if (count != size) throw new IOException("Expected " + size + " keys: " + count);
+		set.size = size;
+		return set;
+	}
+
+	/** Returns the buffer after reading from the channel until it has at least the specified bytes remaining. */
+	private ByteBuffer require (ReadableByteChannel channel, int bytes) throws IOException {
+		if (bytes < 0) throw new IOException("Invalid length: " + bytes);
+		ByteBuffer buffer = this.buffer;
+		if (buffer.remaining() >= bytes) return buffer;
+		if (buffer.capacity() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(bytes);
+			larger.put(buffer);
+			this.buffer = buffer = larger;
+		} else
+			buffer.compact();
+		while (buffer.position() < bytes)
+			if (channel.read(buffer) == -1) throw new EOFException();
+		buffer.flip();
+		return buffer;
+	}
+
+	private int readVarint (ReadableByteChannel channel) throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = require(channel, 1).get();
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) return result;
+		}
+		throw new IOException("Invalid varint.");
+	}
+
+	static private void writeVarint (ByteBuffer buffer, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer.put((byte)(value | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	/** Encodes keys to bytes. The serializer stores the length, so a codec only writes and reads the key's bytes. */
+	static public interface KeyCodec<T> {
+		/** Returns the number of bytes {@link #write(Object, ByteBuffer)} will write for the key. */
+		public int length (T key);
+
+		/** Writes the key at the buffer's position. The buffer has at least {@link #length(Object)} bytes remaining. */
+		public void write (T key, ByteBuffer buffer);
+
+		/** Reads a key of the specified length from the buffer's position. */
+		public T read (ByteBuffer buffer, int length);
+	}
+
+	/** Encodes strings as UTF-8. ASCII strings are copied without an encoder. Unpaired surrogates are written as '?'. Reuses a
+	 * byte array, so is not thread safe. */
+	static public class StringCodec implements KeyCodec<String> {
+		private byte[] bytes = new byte[64];
+
+		public int length (String key) {
+			int length = key.length(), bytes = length;
+			for (int i = 0; i < length; i++) {
+				char c = key.charAt(i);
+				if (c < 0x80) continue;
+				if (c < 0x800)
+					bytes++;
+				else if (!Character.isSurrogate(c))
+					bytes += 2;
+				else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+					bytes += 2; // 4 bytes for the pair.
+					i++;
+				} // An unpaired surrogate is written as '?' by String#getBytes.
+			}
+			return bytes;
+		}
+
+		public void write (String key, ByteBuffer buffer) {
+			int length = key.length();
+			for (int i = 0; i < length; i++) {
+				char c = key.charAt(i);
+				if (c >= 0x80) {
+					buffer.put(key.substring(i).getBytes(StandardCharsets.UTF_8));
+					return;
+				}
+				buffer.put((byte)c);
+			}
+		}
+
+		public String read (ByteBuffer buffer, int length) {
+			if (bytes.length < length) bytes = new byte[Math.max(length, bytes.length << 1)];
+			buffer.get(bytes, 0, length);
+			return new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+
+	/** Encodes longs as 8 bytes. */
+	static public class LongCodec implements KeyCodec<Long> {
+		public int length (Long key) {
+			return 8;
+		}
+
+		public void write (Long key, ByteBuffer buffer) {
+			buffer.putLong(key);
+		}
+
+		public Long read (ByteBuffer buffer, int length) {
+			return buffer.getLong();
+		}
+	}
+
+	/** Encodes ints as 4 bytes. */
+	static public class IntegerCodec implements KeyCodec<Integer> {
+		public int length (Integer key) {
+			return 4;
+		}
+
+		public void write (Integer key, ByteBuffer buffer) {
+			buffer.putInt(key);
+		}
+
+		public Integer read (ByteBuffer buffer, int length) {
+			return buffer.getInt();
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Add, contains and a full GC for very large sets of long keys, on heap with {@link MerryLongSet} and off heap with
+ * {@link OffHeapLongSet}, using direct ByteBuffers (OffHeap) or a memory mapped file in {@link Wordlist#CACHE_DIRECTORY}
+ * (OffHeapMapped). Add starts from the default capacity, so it includes growing the table. Gc times System.gc() while the set is
+ * full, which shows what the table adds to a full GC pause. The GC profiler's ·gc.time shows the GC time during add and
+ * contains.
+ * <p>
+ * The keys are computed rather than stored so the heap holds only the set. 200M keys needs a 2 GB table and 3 GB while growing
+ * it, on heap or off. See {@link LargeSetBenchmark} for boxed keys in a MerrySet. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class OffHeapBenchmark {
+	@Benchmark
+	public Object MerryLongSet (MerryLongSetState state, Blackhole blackhole) {
+		MerryLongSet set = state.set;
+		int size = state.size;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0; i < size; i++)
+				set.add(key(i));
+			break;
+		case contains:
+			for (int i = 0; i < size; i++)
+				blackhole.consume(set.contains(key(i)));
+			break;
+		case gc:
+			System.gc();
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	@Benchmark
+	public Object OffHeap (OffHeapState state, Blackhole blackhole) {
+		return offHeap(state, blackhole);
+	}
+
+	@Benchmark
+	public Object OffHeapMapped (OffHeapMappedState state, Blackhole blackhole) {
+		return offHeap(state, blackhole);
+	}
+
+	private Object offHeap (OffHeapState state, Blackhole blackhole) {
+		OffHeapLongSet set = state.set;
+		int size = state.size;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0; i < size; i++)
+				set.add(key(i));
+			break;
+		case contains:
+			for (int i = 0; i < size; i++)
+				blackhole.consume(set.contains(key(i)));
+			break;
+		case gc:
+			System.gc();
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return set;
+	}
+
+	static long key (int i) {
+		return i * 0xC13FA9A902A6328FL; // Odd multiplier: distinct, and spreads the keys over all 64 bits.
+	}
+
+	static public enum Op {
+		add, contains, gc
+	}
+
+	@State(Scope.Thread)
+	static public abstract class LongsState {
+		@Param({"10000000", "50000000", "200000000"}) public int size;
+		@Param public Op op;
+
+		@Setup(Level.Invocation)
+		public void invocation () {
+			if (op == Op.add || !filled()) {
+				newSet(); // Free the previous set before the next is filled.
+				if (op != Op.add) {
+					for (int i = 0; i < size; i++)
+						add(key(i));
+				}
+			}
+		}
+
+		abstract boolean filled ();
+
+		abstract void newSet ();
+
+		abstract void add (long key);
+	}
+
+	@State(Scope.Thread)
+	static public class MerryLongSetState extends LongsState {
+		public MerryLongSet set;
+
+		boolean filled () {
+			return set != null && set.size == size;
+		}
+
+		void newSet () {
+			set = null;
+			set = new MerryLongSet();
+		}
+
+		void add (long key) {
+			set.add(key);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class OffHeapState extends LongsState {
+		public OffHeapLongSet set;
+
+		boolean filled () {
+			return set != null && set.size == size;
+		}
+
+		void newSet () {
+			if (set != null) set.close();
+			set = createSet();
+		}
+
+		OffHeapLongSet createSet () {
+			return new OffHeapLongSet();
+		}
+
+		void add (long key) {
+			set.add(key);
+		}
+
+		@TearDown(Level.Trial)
+		public void close () {
+			if (set != null) set.close();
+			set = null;
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class OffHeapMappedState extends OffHeapState {
+		OffHeapLongSet createSet () {
+			File directory = new File(Wordlist.CACHE_DIRECTORY);
+			directory.mkdirs();
+			return new OffHeapLongSet(51, 0.8f, directory);
+		}
+	}
+}
@@ -0,0 +1,285 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A set of primitive long keys stored outside the Java heap, so a huge table isn't copied or scanned by the GC. The table is
+ * the same as {@link MerryLongSet}: Fibonacci hashing, linear probing and backward shift removal, with 0 marking an empty slot.
+ * It is split into pages of direct ByteBuffers, or of a memory mapped temporary file so the table can be larger than RAM and is
+ * paged by the OS. Adding, removing and checking keys doesn't allocate.
+ * <p>
+ * The memory is freed by {@link #close()}, or when the set is garbage collected, which may be much later since the GC doesn't
+ * see the size of the table. The set must not be used after it is closed. Resizing needs the old and new tables at the same
+ * time, so with direct buffers -XX:MaxDirectMemorySize must allow for both. */
+public class OffHeapLongSet implements Closeable {
+	static private final int defaultPageShift = 24; // 16M slots, 128MB pages.
+
+	static private Object unsafe;
+	static private Method invokeCleaner;
+	static {
+		try {
+			Class unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); // Java 9+
+		} catch (Throwable ignored) {
+		}
+	}
+
+	public int size;
+
+	ByteBuffer[] pages;
+	boolean hasZeroKey;
+	final int pageShift;
+	final File directory;
+	File file;
+
+	float loadFactor;
+	int threshold, capacity;
+	/** See {@link MerrySet#shift}. */
+	protected int shift;
+	/** See {@link MerrySet#mask}. */
+	protected int mask;
+
+	/** Creates a new set backed by direct ByteBuffers, with an initial capacity of 51 and a load factor of 0.8. */
+	public OffHeapLongSet () {
+		this(51, 0.8f, null);
+	}
+
+	/** @param initialCapacity If not a power of two, it is increased to the next nearest power of two.
+	 * @param directory If not null, the table is a memory mapped file in this directory, which is deleted when the set is closed
+	 *           or resized. If null, the table is direct ByteBuffers. */
+	public OffHeapLongSet (int initialCapacity, float loadFactor, File directory) {
+		this(initialCapacity, loadFactor, directory, defaultPageShift);
+	}
+
+	OffHeapLongSet (int initialCapacity, float loadFactor, File directory, int pageShift) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		initialCapacity = MathUtils.nextPowerOfTwo((int)Math.ceil(Math.max(1, initialCapacity) / loadFactor));
+		if (initialCapacity > 1 << 30) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		this.loadFactor = loadFactor;
+		this.directory = directory;
+		this.pageShift = pageShift;
+
+		capacity = initialCapacity;
+		threshold = (int)(initialCapacity * loadFactor);
+		mask = initialCapacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		pages = allocate(initialCapacity);
+	}
+
+	/** Returns an index >= 0 and <= {@link #mask} for the key, using Fibonacci hashing. See {@link MerrySet#place(Object)}. */
+	protected int place (long key) {
+		return (int)(key * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	private long get (int index) {
+		return pages[index >>> pageShift].getLong((index & (1 << pageShift) - 1) << 3);
+	}
+
+	private void set (int index, long key) {
+		pages[index >>> pageShift].putLong((index & (1 << pageShift) - 1) << 3, key);
+	}
+
+	/** Returns the index of the key if already present, else -(index + 1) for the next empty index. The key must not be 0. */
+	int locateKey (long key) {
+		for (int i = place(key);; i = i + 1 & mask) {
+			long other = get(i);
+			if (other == 0) return -(i + 1); // Empty space is available.
+			if (other == key) return i; // Same key was found.
+		}
+	}
+
+	/** Returns true if the key was not already in the set. */
+	public boolean add (long key) {
+		if (key == 0) {
+			if (hasZeroKey) return false;
+			hasZeroKey = true;
+			size++;
+			return true;
+		}
+		int i = locateKey(key);
+		if (i >= 0) return false; // Existing key was found.
+		set(-(i + 1), key); // Empty space was found.
+		if (++size >= threshold) resize(capacity << 1);
+		return true;
+	}
+
+	/** Returns true if the key was removed. */
+	public boolean remove (long key) {
+		if (key == 0) {
+			if (!hasZeroKey) return false;
+			hasZeroKey = false;
+			size--;
+			return true;
+		}
+		int i = locateKey(key);
+		if (i < 0) return false;
+		int mask = this.mask, next = i + 1 & mask;
+		while ((key = get(next)) != 0) {
+			// Move the key into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key) & mask) >= (next - i & mask)) {
+				set(i, key);
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		set(i, 0);
+		size--;
+		return true;
+	}
+
+	public boolean contains (long key) {
+		if (key == 0) return hasZeroKey;
+		return locateKey(key) >= 0;
+	}
+
+	/** Returns true if the set has one or more items. */
+	public boolean notEmpty () {
+		return size > 0;
+	}
+
+	/** Returns true if the set is empty. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Clears the set, leaving the table at the current capacity. The table is replaced with a new zeroed one, which is faster
+	 * than clearing each slot. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		hasZeroKey = false;
+		ByteBuffer[] oldPages = pages;
+		File oldFile = file;
+		pages = allocate(capacity);
+		free(oldPages, oldFile);
+	}
+
+	/** Increases the size of the table to accommodate the specified number of additional items / loadFactor. Useful before adding
+	 * many items to avoid multiple resizes. */
+	public void ensureCapacity (int additionalCapacity) {
+		int tableSize = MathUtils.nextPowerOfTwo((int)Math.ceil((size + additionalCapacity) / loadFactor));
+		if (capacity < tableSize) resize(tableSize);
+	}
+
+	/** Returns the number of slots in the table. */
+	public int getCapacity () {
+		return capacity;
+	}
+
+	private void resize (int newSize) {
+		if (newSize > 1 << 30) throw new IllegalStateException("The table can't grow beyond 2^30 slots, size: " + size);
+		int oldCapacity = capacity;
+		ByteBuffer[] oldPages = pages;
+		File oldFile = file;
+		int pageShift = this.pageShift, pageMask = (1 << pageShift) - 1;
+
+		pages = allocate(newSize);
+		capacity = newSize;
+		threshold = (int)(newSize * loadFactor);
+		mask = newSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+
+		for (int i = 0; i < oldCapacity; i++) {
+			long key = oldPages[i >>> pageShift].getLong((i & pageMask) << 3);
+			if (key == 0) continue;
+			int slot = place(key);
+			while (get(slot) != 0)
+				slot = slot + 1 & mask;
+			set(slot, key);
+		}
+		free(oldPages, oldFile);
+	}
+
+	/** Returns zeroed pages for a table of the specified size, and sets {@link #file} if the pages are mapped. */
+	private ByteBuffer[] allocate (int tableSize) {
+		int pageSlots = Math.min(tableSize, 1 << pageShift), pageBytes = pageSlots << 3;
+		ByteBuffer[] pages = new ByteBuffer[tableSize / pageSlots];
+		if (directory == null) {
+			for (int i = 0, n = pages.length; i < n; i++)
+				pages[i] = ByteBuffer.allocateDirect(pageBytes).order(ByteOrder.nativeOrder());
+			return pages;
+		}
+		File newFile = null;
+		try {
+			newFile = File.createTempFile("OffHeapLongSet", ".table", directory);
+			newFile.deleteOnExit();
+			// The mapped region extends the file with zeros. The mappings stay valid after the channel is closed.
+			try (FileChannel channel = FileChannel.open(newFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				for (int i = 0, n = pages.length; i < n; i++)
+					pages[i] = channel.map(MapMode.READ_WRITE, (long)i * pageBytes, pageBytes).order(ByteOrder.nativeOrder());
+			}
+			file = newFile;
+			return pages;
+		} catch (IOException ex) {
+			if (newFile != null) newFile.delete();
+			throw new RuntimeException("Unable to map table file in: " + directory, ex);
+		}
+	}
+
+	/** Releases the memory of the pages now rather than when they are garbage collected, and deletes the file if mapped. */
+	static private void free (ByteBuffer[] pages, File file) {
+		for (ByteBuffer page : pages) {
+			try {
+				if (invokeCleaner != null)
+					invokeCleaner.invoke(unsafe, page);
+				else { // Java 8
+					Method cleanerMethod = page.getClass().getMethod("cleaner");
+					cleanerMethod.setAccessible(true);
+					Object cleaner = cleanerMethod.invoke(page);
+					if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			} catch (Throwable ignored) { // Freed when garbage collected.
+			}
+		}
+		if (file != null) file.delete();
+	}
+
+	/** Frees the table. The set must not be used afterward. */
+	public void close () {
+		if (pages == null) return;
+		free(pages, file);
+		pages = null;
+		file = null;
+		size = 0;
+		hasZeroKey = false;
+	}
+
+	public String toString () {
+		return "OffHeapLongSet [size=" + size + ", capacity=" + capacity + (file != null ? ", file=" + file : "") + "]";
+	}
+}
@@ -0,0 +1,106 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+/** Built-in strategies for {@link MerrySet#place(Object)}, which maps a key's hashcode to its ideal index in the table. Each
+ * creates a MerrySet subclass that overrides place. */
+public enum Placement {
+	/** The MerrySet default: the hashcode times 2^64 divided by the golden ratio, keeping the upper bits of the 64-bit product. */
+	fibonacci {
+		public <T> MerrySet<T> newSet () {
+			return new MerrySet();
+		}
+	},
+	/** The low bits of the hashcode, unmixed. Fastest for well distributed hashcodes, terrible when only the upper bits vary. */
+	mask {
+		public <T> MerrySet<T> newSet () {
+			return new MerrySet<T>() {
+				protected int place (T item) {
+					return item.hashCode() & mask;
+				}
+			};
+		}
+	},
+	/** The murmur3 32-bit finalizer: two multiplies and three xorshifts, every input bit affects every output bit. */
+	murmur {
+		public <T> MerrySet<T> newSet () {
+			return new MerrySet<T>() {
+				protected int place (T item) {
+					int h = item.hashCode();
+					h = (h ^ h >>> 16) * 0x85ebca6b;
+					h = (h ^ h >>> 13) * 0xc2b2ae35;
+					return (h ^ h >>> 16) & mask;
+				}
+			};
+		}
+	},
+	/** A single xorshift-multiply-xorshift round, cheaper than murmur with most of the mixing. */
+	xorshift {
+		public <T> MerrySet<T> newSet () {
+			return new MerrySet<T>() {
+				protected int place (T item) {
+					int h = item.hashCode();
+					h = (h ^ h >>> 16) * 0x45d9f3b;
+					return (h ^ h >>> 16) & mask;
+				}
+			};
+		}
+	},
+	/** The upper half of the hashcode folded into the lower half, as java.util.HashMap does. */
+	fold {
+		public <T> MerrySet<T> newSet () {
+			return new MerrySet<T>() {
+				protected int place (T item) {
+					int h = item.hashCode();
+					return (h ^ h >>> 16) & mask;
+				}
+			};
+		}
+	};
+
+	/** Returns a new, empty set that uses this placement. */
+	abstract public <T> MerrySet<T> newSet ();
+
+	/** Returns the average number of table entries examined to find each key in the set, 1 if every key is at its ideal index,
+	 * or 0 if the set is empty. */
+	static public double averageProbeLength (MerrySet set) {
+		if (set.size == 0) return 0;
+		Object[] keyTable = set.keyTable;
+		int mask = set.mask;
+		long total = 0;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			Object key = keyTable[i];
+			if (key != null) total += (i - set.place(key) & mask) + 1;
+		}
+		return total / (double)set.size;
+	}
+
+	/** Returns the largest number of table entries examined to find any key in the set. */
+	static public int maxProbeLength (MerrySet set) {
+		Object[] keyTable = set.keyTable;
+		int mask = set.mask, max = 0;
+		for (int i = 0, n = keyTable.length; i < n; i++) {
+			Object key = keyTable[i];
+			if (key != null) max = Math.max(max, (i - set.place(key) & mask) + 1);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,105 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.esotericsoftware.mapbench.AdversarialBenchmark.Op;
+import com.esotericsoftware.mapbench.AdversarialKeys.Family;
+
+/** Add, contains and remove for MerrySet with each {@link Placement}, using the distinct words and each of the
+ * {@link AdversarialKeys} families (which include sequential integers). {@link ProbeProfiler} reports the average and maximum
+ * probe length of the filled set for each placement. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class PlacementBenchmark {
+	@Benchmark
+	public Object MerrySet (PlacementState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		Object[] keys = state.keys;
+		long allocated = AllocationProfiler.start();
+		switch (state.op) {
+		case add:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.add(keys[i]);
+			break;
+		case contains:
+			for (int i = 0, n = keys.length; i < n; i++)
+				blackhole.consume(set.contains(keys[i]));
+			break;
+		case remove:
+			for (int i = 0, n = keys.length; i < n; i++)
+				set.remove(keys[i]);
+			break;
+		}
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@State(Scope.Thread)
+	static public class PlacementState {
+		@Param({"fibonacci", "mask", "murmur", "xorshift", "fold"}) public Placement placement;
+		@Param({"words", "collisions", "fibonacci", "highBits", "lowBits", "sequential"}) public String keyFamily;
+		@Param({"1000", "10000"}) public int size; // Collisions are O(n^2) for add, so sizes are kept small.
+		@Param({"add", "contains", "remove"}) public Op op;
+
+		public Object[] keys;
+		public MerrySet set;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			if (keyFamily.equals("words"))
+				keys = Footprint.distinct(Wordlist.loadWords(size, -1));
+			else
+				keys = Family.valueOf(keyFamily).generate(size);
+		}
+
+		@Setup(Level.Iteration)
+		public void probes () {
+			fill(op == Op.contains);
+			ProbeProfiler.record(set);
+		}
+
+		@Setup(Level.Invocation)
+		public void fill () {
+			if (op == Op.add)
+				set = placement.newSet();
+			else if (op == Op.remove) //
+				fill(false);
+		}
+
+		/** @param half If true, every other key is skipped so half the contains return false. */
+		void fill (boolean half) {
+			set = placement.newSet();
+			for (int i = 0, n = keys.length; i < n; i++) {
+				set.add(keys[i]);
+				if (half) ++i;
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+package com.esotericsoftware.mapbench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Contains with a MerrySet whose call sites in {@link MerrySet#locateKey(Object)} see several receiver classes. HotSpot inlines
+ * a virtual call when the profile shows one or two receiver classes, and otherwise makes a megamorphic virtual call that can't
+ * be inlined.
+ * <p>
+ * keyTypes is how many of String, Integer, Long and {@link KeyType.CompositeKey} the keys are made of, which makes the
+ * hashCode() and equals() calls polymorphic. placeTypes is how many MerrySet classes with their own {@link MerrySet#place(Object)}
+ * are used before measuring, which makes the place() call polymorphic, as happens when place() is overridden as its javadoc
+ * suggests. The measured set is always a MerrySet.
+ * <p>
+ * Run with {@link JitProfiler} (Benchmarks -jit) to see the inlining decisions for each case. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class PolymorphicKeyBenchmark {
+	@Benchmark
+	public Object MerrySet (KeysState state, Blackhole blackhole) {
+		MerrySet set = state.set;
+		Object[] keys = state.lookups;
+		long allocated = AllocationProfiler.start();
+		for (int i = 0, n = keys.length; i < n; i++)
+			blackhole.consume(set.contains(keys[i]));
+		AllocationProfiler.stop(allocated);
+		return blackhole;
+	}
+
+	@State(Scope.Thread)
+	static public class KeysState {
+		static private final KeyType[] keyTypeOrder = {KeyType.string, KeyType.integer, KeyType.longs, KeyType.composite};
+
+		@Param({"1", "2", "3", "4"}) public int keyTypes;
+		@Param({"1", "3"}) public int placeTypes;
+		@Param({"100000"}) public int size; // Words to load from the file.
+
+		public MerrySet set;
+		public Object[] keys, lookups;
+
+		/** Each word becomes a key of one of the key types, chosen by its hashcode so equal words get equal keys. Every other key
+		 * is added so half the lookups miss. */
+		@Setup(Level.Trial)
+		public void setup () {
+			String[] words = Wordlist.loadWords(size, -1);
+			keys = new Object[size];
+			lookups = new Object[size];
+			for (int t = 0; t < keyTypes; t++) {
+				KeyType keyType = keyTypeOrder[t];
+				Object[] typeKeys = keyType.keys(words), typeLookups = keyType.copies(typeKeys);
+				for (int i = 0; i < size; i++) {
+					if ((words[i].hashCode() & 0x7fffffff) % keyTypes != t) continue;
+					keys[i] = typeKeys[i];
+					lookups[i] = typeLookups[i];
+				}
+			}
+			set = new MerrySet();
+			for (int i = 0; i < size; i += 2)
+				set.add(keys[i]);
+
+			// Warm up the other set classes so the place() call's profile has seen them before locateKey() is compiled.
+			MerrySet[] others = {new MaskSet(), new MixSet()};
+			for (int p = 0; p < placeTypes - 1; p++) {
+				MerrySet other = others[p];
+				for (int i = 0; i < size; i += 2)
+					other.add(keys[i]);
+				for (int r = 0; r < 10; r++)
+					for (int i = 0; i < size; i++)
+						other.contains(lookups[i]);
+			}
+		}
+	}
+
+	/** Masks the hashcode's low bits, as the {@link MerrySet#place(Object)} javadoc suggests for high quality hashcodes. */
+	static class MaskSet extends MerrySet {
+		protected int place (Object item) {
+			return item.hashCode() & mask;
+		}
+	}
+
+	/** Mixes the hashcode with the murmur3 finalizer and masks the low bits. */
+	static class MixSet extends MerrySet {
+		protected int place (Object item) {
+			int h = item.hashCode();
+			h = (h ^ h >>> 16) * 0x85EBCA6B;
+			h = (h ^ h >>> 13) * 0xC2B2AE35;
+			return (h ^ h >>> 16) & mask;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/** Reports the probe lengths of sets recorded with {@link #record(MerrySet)}, so benchmarks in SingleShotTime mode, where
+ * AuxCounters are ignored, can report how many table entries lookups examine. Record in an iteration setup, after the set is
+ * filled.
+ * <p>
+ * Results are named "·probe.avg" and "·probe.max". Nothing is reported for benchmarks that don't record probe lengths.
+ * {@link Benchmarks} adds this profiler by default. */
+public class ProbeProfiler implements InternalProfiler {
+	static private double total;
+	static private int count, max;
+
+	/** Records the average and maximum probe length of the set. */
+	static public synchronized void record (MerrySet set) {
+		total += Placement.averageProbeLength(set);
+		count++;
+		max = Math.max(max, Placement.maxProbeLength(set));
+	}
+
+	public void beforeIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+		synchronized (ProbeProfiler.class) {
+			total = 0;
+			count = 0;
+			max = 0;
+		}
+	}
+
+	public Collection<? extends Result> afterIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams,
+		IterationResult result) {
+		synchronized (ProbeProfiler.class) {
+			if (count == 0) return Collections.emptyList();
+			ArrayList<Result> results = new ArrayList();
+			results.add(new ScalarResult("·probe.avg", total / count, "probes", AggregationPolicy.AVG));
+			results.add(new ScalarResult("·probe.max", max, "probes", AggregationPolicy.MAX));
+			return results;
+		}
+	}
+
+	public String getDescription () {
+		return "Average and maximum probe lengths of recorded sets.";
+	}
+}
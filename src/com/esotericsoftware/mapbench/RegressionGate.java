@@ -0,0 +1,181 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.openjdk.jmh.util.ListStatistics;
+
+import com.esotericsoftware.mapbench.JmhResults.Result;
+
+/** Compares two sets of JMH results and exits with a non-zero code if any benchmark became slower by more than a threshold and
+ * the difference is statistically significant, or if a baseline benchmark is missing from the current results, eg because it
+ * crashed or ran out of memory. Benchmarks are matched by name, mode, threads and params.
+ * <p>
+ * With JSON results (-rf json) the raw samples are compared with Welch's t-test. With CSV results only the score, its 99.9%
+ * confidence error and the number of samples are available. JMH computes the error from Student's t distribution, so it is
+ * converted back to a standard error with the same distribution and Welch's t-test is used on that. If a result has no error,
+ * eg with a single iteration, significance can't be determined and only the threshold is used.
+ * <p>
+ * Usage: RegressionGate [-threshold percent] [-confidence level] [-all] [-allowMissing] baseline.csv|json current.csv|json
+ * <p>
+ * Exit codes: 0 no regressions, 1 regressions or missing benchmarks found, 2 bad arguments, 3 a results file can't be read. */
+public class RegressionGate {
+	static public final int REGRESSION = 1, USAGE = 2, READ_ERROR = 3;
+
+	/** Slowdowns larger than this percentage fail the gate. */
+	public double threshold = 5;
+	/** The confidence level for a difference to be considered significant. */
+	public double confidence = 0.99;
+	/** When true, unchanged benchmarks are included in the report. */
+	public boolean all;
+	/** When true, baseline benchmarks missing from the current results don't fail the gate, eg when only some benchmarks were
+	 * run. */
+	public boolean allowMissing;
+
+	/** Prints a report and returns the number of regressions, plus the number of missing benchmarks unless
+	 * {@link #allowMissing} is true. */
+	public int compare (List<Result> baseline, List<Result> current) {
+		LinkedHashMap<String, Result> baselineByKey = new LinkedHashMap();
+		for (Result result : baseline)
+			if (!result.isSecondary()) baselineByKey.put(result.getKey(), result);
+
+		int regressions = 0, improvements = 0, compared = 0;
+		ArrayList<String> added = new ArrayList();
+		System.out.println(String.format("%-11s %9s %8s  %-14s %-14s %s", "Status", "Change", "p", "Baseline", "Current",
+			"Benchmark"));
+		for (Result result : current) {
+			if (result.isSecondary()) continue;
+			Result base = baselineByKey.remove(result.getKey());
+			if (base == null) {
+				added.add(result.getKey());
+				continue;
+			}
+			compared++;
+			// Positive is slower, regardless of whether the mode is throughput or time.
+			double slowdown = (result.score - base.score) / base.score * 100;
+			if (result.isHigherBetter()) slowdown = -slowdown;
+			double p = pValue(base, result);
+			boolean significant = Double.isNaN(p) || p < 1 - confidence;
+			String status;
+			if (significant && slowdown > threshold) {
+				status = "REGRESSION";
+				regressions++;
+			} else if (significant && slowdown < -threshold) {
+				status = "improved";
+				improvements++;
+			} else {
+				if (!all) continue;
+				status = "ok";
+			}
+			System.out.println(String.format("%-11s %+8.2f%% %8s  %-14s %-14s %s", status, slowdown,
+				Double.isNaN(p) ? "?" : String.format("%.4f", p), score(base), score(result), result.getKey()));
+		}
+		for (String key : baselineByKey.keySet())
+			System.out.println((allowMissing ? "missing: " : "MISSING: ") + key);
+		for (String key : added)
+			System.out.println("new: " + key);
+		System.out.println(compared + " compared, " + regressions + " regressions, " + improvements + " improvements, "
+			+ baselineByKey.size() + " missing, " + added.size() + " new (threshold " + threshold + "%, confidence " + confidence
+			+ ")");
+		return allowMissing ? regressions : regressions + baselineByKey.size();
+	}
+
+	/** Returns the probability that the difference is due to chance, or NaN if it can't be determined. */
+	static public double pValue (Result a, Result b) {
+		if (a.samples != null && b.samples != null && a.samples.length > 1 && b.samples.length > 1) {
+			ListStatistics statsA = new ListStatistics(a.samples), statsB = new ListStatistics(b.samples);
+			return welch(statsA.getMean(), statsA.getVariance() / statsA.getN(), statsA.getN(), statsB.getMean(),
+				statsB.getVariance() / statsB.getN(), statsB.getN());
+		}
+		if (Double.isNaN(a.error) || Double.isNaN(b.error)) return Double.NaN;
+		if (a.count > 1 && b.count > 1) {
+			// The error is the half width of the 99.9% confidence interval, from Student's t distribution with count - 1
+			// degrees of freedom, as computed by JMH.
+			double seA = a.error / new TDistribution(a.count - 1).inverseCumulativeProbability(0.9995);
+			double seB = b.error / new TDistribution(b.count - 1).inverseCumulativeProbability(0.9995);
+			return welch(a.score, seA * seA, a.count, b.score, seB * seB, b.count);
+		}
+		// The number of samples is unknown, so the normal distribution is used.
+		double z999 = new NormalDistribution().inverseCumulativeProbability(0.9995);
+		double seA = a.error / z999, seB = b.error / z999;
+		double se = Math.sqrt(seA * seA + seB * seB);
+		if (se == 0) return a.score == b.score ? 1 : 0;
+		return 2 * new NormalDistribution().cumulativeProbability(-Math.abs(a.score - b.score) / se);
+	}
+
+	/** Welch's t-test, the same test JMH uses for Statistics#isDifferent.
+	 * @param varianceA The variance of the mean, ie the squared standard error. */
+	static private double welch (double meanA, double varianceA, long countA, double meanB, double varianceB, long countB) {
+		if (varianceA + varianceB == 0) return meanA == meanB ? 1 : 0;
+		double t = Math.abs(meanA - meanB) / Math.sqrt(varianceA + varianceB);
+		double df = (varianceA + varianceB) * (varianceA + varianceB)
+			/ (varianceA * varianceA / (countA - 1) + varianceB * varianceB / (countB - 1));
+		return 2 * new TDistribution(df).cumulativeProbability(-t);
+	}
+
+	static private String score (Result result) {
+		if (Double.isNaN(result.error)) return String.format("%.4g", result.score);
+		return String.format("%.4g±%.2g", result.score, result.error);
+	}
+
+	static public void main (String[] args) throws Exception {
+		RegressionGate gate = new RegressionGate();
+		ArrayList<String> files = new ArrayList();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-threshold"))
+					gate.threshold = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-confidence"))
+					gate.confidence = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-all"))
+					gate.all = true;
+				else if (args[i].equals("-allowMissing"))
+					gate.allowMissing = true;
+				else
+					files.add(args[i]);
+			}
+		} catch (RuntimeException ex) {
+			files.clear();
+		}
+		if (files.size() != 2) {
+			System.out.println(
+				"Usage: RegressionGate [-threshold percent] [-confidence level] [-all] [-allowMissing] baseline current");
+			System.exit(USAGE);
+		}
+		List<Result> baseline, current;
+		try {
+			baseline = JmhResults.read(new File(files.get(0)));
+			current = JmhResults.read(new File(files.get(1)));
+		} catch (IOException | RuntimeException ex) { // Not REGRESSION, so a script can tell a failed comparison from a slowdown.
+			System.out.println("Unable to read results: " + ex);
+			System.exit(READ_ERROR);
+			return;
+		}
+		if (gate.compare(baseline, current) > 0) System.exit(REGRESSION);
+	}
+}
@@ -0,0 +1,142 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Times a single MerrySet resize: the set is filled to one key below its threshold, then the measured add doubles the table.
+ * MerrySet rehashes into a new table, InPlace uses {@link #growInPlace(MerrySet)}. The bytes allocated reported with -alloc by
+ * {@link AllocationProfiler} are what the resize needs in addition to the old table, so the peak heap for the table is the old
+ * table plus the allocation. In place is about 2.5x slower and doesn't lower the peak heap, which is why it isn't part of
+ * MerrySet. {@link SegmentedMerrySet} is what lowers it, since each resize copies only one segment.
+ * <p>
+ * Keys are distinct Longs. 50M fills a 2^26 table to 53M keys and needs about 3 GB of heap. 100M fills a 2^27 table to 107M keys
+ * and needs about 6 GB, eg: -p size=100000000 -jvmArgsAppend -Xmx6g */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class ResizeBenchmark {
+	@Benchmark
+	public Object MerrySet (MerrySetState state) {
+		return state.resize();
+	}
+
+	@Benchmark
+	public Object InPlace (InPlaceState state) {
+		return state.resize();
+	}
+
+	@State(Scope.Thread)
+	static public abstract class ResizeState {
+		@Param({"1000000", "10000000", "50000000"}) public int size; // The table holds at least this many keys before resizing.
+
+		public MerrySet set;
+		public Long trigger;
+		int capacity;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			set = new MerrySet(size);
+			long i = 0;
+			while (set.size < set.threshold - 1)
+				set.add(i++ * 0xC13FA9A902A6328FL);
+			trigger = i * 0xC13FA9A902A6328FL;
+			capacity = set.keyTable.length;
+		}
+
+		@Setup(Level.Invocation)
+		public void invocation () {
+			if (set.keyTable.length == capacity) return;
+			set.remove(trigger);
+			set.shrink(capacity);
+		}
+
+		Object resize () {
+			long allocated = AllocationProfiler.start();
+			grow();
+			AllocationProfiler.stop(allocated);
+			return set;
+		}
+
+		/** Adds the trigger key, doubling the table. */
+		abstract void grow ();
+	}
+
+	@State(Scope.Thread)
+	static public class MerrySetState extends ResizeState {
+		void grow () {
+			set.add(trigger);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class InPlaceState extends ResizeState {
+		void grow () {
+			growInPlace(set);
+			set.add(trigger);
+		}
+	}
+
+	/** Doubles the table size by copying the table into the lower half of a table twice the size, then moving the keys within it.
+	 * With Fibonacci hashing a key in slot i is placed near 2i, so most keys move a short distance forward. Each key is taken
+	 * out of its slot and inserted by probing from its new place, skipping slots that hold keys already moved. If the slot it
+	 * lands in holds a key that hasn't been moved yet, that key is inserted next, so each key is moved once and clusters that
+	 * wrap around the end of the table need no special handling. A bitset with a bit per slot tracks the moved keys.
+	 * <p>
+	 * The JVM can't grow an array, so {@link Arrays#copyOf(Object[], int)} allocates the new table while the old one is live, the
+	 * same as rehashing into a new table. The peak heap used is the same, plus the bitset, which is 1/32 of the new table with
+	 * compressed references. */
+	static void growInPlace (MerrySet set) {
+		int oldCapacity = set.keyTable.length, newSize = oldCapacity << 1;
+		Object[] keyTable = Arrays.copyOf(set.keyTable, newSize);
+		set.keyTable = keyTable;
+		set.threshold = (int)(newSize * set.loadFactor);
+		int mask = newSize - 1;
+		set.mask = mask;
+		set.shift = Long.numberOfLeadingZeros(mask);
+
+		long[] moved = new long[newSize + 63 >>> 6];
+		for (int i = 0; i < oldCapacity; i++) {
+			Object key = keyTable[i];
+			if (key == null || (moved[i >>> 6] & 1L << i) != 0) continue;
+			keyTable[i] = null;
+			while (true) {
+				int slot = set.place(key);
+				while ((moved[slot >>> 6] & 1L << slot) != 0)
+					slot = slot + 1 & mask;
+				moved[slot >>> 6] |= 1L << slot;
+				Object displaced = keyTable[slot];
+				keyTable[slot] = key;
+				if (displaced == null) break;
+				key = displaced; // Not moved yet, only keys in the lower half haven't been moved.
+			}
+		}
+	}
+}
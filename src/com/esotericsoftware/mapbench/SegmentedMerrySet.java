@@ -0,0 +1,232 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.esotericsoftware.mapbench.MerrySet.ObjectSetIterator;
+
+/** An unordered set split into a fixed number of {@link MerrySet} segments, for more keys than a single table of at most 2^30
+ * slots can hold. The top bits of the key's Fibonacci hash pick the segment and the bits after them pick the slot within the
+ * segment, so every segment sees well distributed hashes. Each segment grows on its own, so growing copies one segment at a time
+ * and needs only that segment's old and new tables at once, rather than a contiguous allocation for the whole set.
+ * <p>
+ * With the default 256 segments the capacity is about 2^38 keys. Null keys are not allowed. */
+public class SegmentedMerrySet<T> implements Iterable<T> {
+	static public final int DEFAULT_SEGMENT_BITS = 8;
+
+	public long size;
+
+	final Segment<T>[] segments;
+	final int segmentShift;
+
+	/** Creates a new set with 256 segments, a total initial capacity of 51 and a load factor of 0.8. */
+	public SegmentedMerrySet () {
+		this(DEFAULT_SEGMENT_BITS, 51, 0.8f);
+	}
+
+	/** Creates a new set with 256 segments and a load factor of 0.8. */
+	public SegmentedMerrySet (long initialCapacity) {
+		this(DEFAULT_SEGMENT_BITS, initialCapacity, 0.8f);
+	}
+
+	/** @param segmentBits The number of segments is 2^segmentBits, 1 to 16.
+	 * @param initialCapacity The total number of items the set can hold before growing, divided evenly between the segments. */
+	public SegmentedMerrySet (int segmentBits, long initialCapacity, float loadFactor) {
+		if (segmentBits < 1 || segmentBits > 16) throw new IllegalArgumentException("segmentBits must be 1 to 16: " + segmentBits);
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		int count = 1 << segmentBits;
+		long segmentCapacity = (initialCapacity + count - 1) / count;
+		if (segmentCapacity > 1 << 29) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		segmentShift = 64 - segmentBits;
+		segments = new Segment[count];
+		for (int i = 0; i < count; i++)
+			segments[i] = new Segment((int)segmentCapacity, loadFactor, segmentBits);
+	}
+
+	/** Returns the segment for the key, using the top bits of its Fibonacci hash. */
+	Segment<T> segment (T key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		return segments[(int)(key.hashCode() * 0x9E3779B97F4A7C15L >>> segmentShift)];
+	}
+
+	/** Returns true if the key was not already in the set. */
+	public boolean add (T key) {
+		if (!segment(key).add(key)) return false;
+		size++;
+		return true;
+	}
+
+	/** Returns the key already in the set that is equal to the specified key, else adds the key and returns it. */
+	public T addOrGet (T key) {
+		Segment<T> segment = segment(key);
+		int oldSize = segment.size;
+		T result = segment.addOrGet(key);
+		if (segment.size != oldSize) size++;
+		return result;
+	}
+
+	/** Returns true if the key was removed. */
+	public boolean remove (T key) {
+		if (!segment(key).remove(key)) return false;
+		size--;
+		return true;
+	}
+
+	public boolean contains (T key) {
+		return segment(key).contains(key);
+	}
+
+	public T get (T key) {
+		return segment(key).get(key);
+	}
+
+	/** Returns true if the set has one or more items. */
+	public boolean notEmpty () {
+		return size > 0;
+	}
+
+	/** Returns true if the set is empty. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Clears the set, leaving the backing arrays at their current capacity. */
+	public void clear () {
+		if (size == 0) return;
+		size = 0;
+		for (Segment<T> segment : segments)
+			segment.clear();
+	}
+
+	/** Increases the size of the backing arrays to accommodate the specified number of additional items, assuming they are spread
+	 * evenly over the segments. */
+	public void ensureCapacity (long additionalCapacity) {
+		if (additionalCapacity < 0) throw new IllegalArgumentException("additionalCapacity must be >= 0: " + additionalCapacity);
+		int count = segments.length, perSegment = (int)Math.min((additionalCapacity + count - 1) / count, 1 << 29);
+		for (Segment<T> segment : segments)
+			segment.ensureCapacity(perSegment);
+	}
+
+	/** Returns the number of segments. */
+	public int getSegmentCount () {
+		return segments.length;
+	}
+
+	/** Returns the total number of slots in all segments. */
+	public long getCapacity () {
+		long capacity = 0;
+		for (Segment<T> segment : segments)
+			capacity += segment.keyTable.length;
+		return capacity;
+	}
+
+	public int hashCode () {
+		int h = (int)size;
+		for (Segment<T> segment : segments) {
+			T[] keyTable = segment.keyTable;
+			for (int i = 0, n = keyTable.length; i < n; i++)
+				if (keyTable[i] != null) h += keyTable[i].hashCode();
+		}
+		return h;
+	}
+
+	public boolean equals (Object obj) {
+		if (!(obj instanceof SegmentedMerrySet)) return false;
+		SegmentedMerrySet other = (SegmentedMerrySet)obj;
+		if (other.size != size) return false;
+		for (Segment<T> segment : segments) {
+			T[] keyTable = segment.keyTable;
+			for (int i = 0, n = keyTable.length; i < n; i++)
+				if (keyTable[i] != null && !other.contains(keyTable[i])) return false;
+		}
+		return true;
+	}
+
+	public String toString () {
+		if (size == 0) return "{}";
+		java.lang.StringBuilder buffer = new java.lang.StringBuilder(32);
+		buffer.append('{');
+		for (T key : this) {
+			if (buffer.length() > 1) buffer.append(", ");
+			buffer.append(key == this ? "(this)" : key);
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+
+	/** Returns a new iterator for the keys in all segments. Remove is supported. */
+	public Iterator<T> iterator () {
+		return new Iterator<T>() {
+			int segmentIndex = -1, lastIndex;
+			ObjectSetIterator<T> current = nextSegment(), last;
+
+			private ObjectSetIterator<T> nextSegment () {
+				while (++segmentIndex < segments.length) {
+					Segment<T> segment = segments[segmentIndex];
+					if (segment.size > 0) return new ObjectSetIterator(segment);
+				}
+				return null;
+			}
+
+			public boolean hasNext () {
+				return current != null;
+			}
+
+			public T next () {
+				if (current == null) throw new NoSuchElementException();
+				T key = current.next();
+				last = current;
+				lastIndex = segmentIndex;
+				if (!current.hasNext) current = nextSegment();
+				return key;
+			}
+
+			public void remove () {
+				if (last == null) throw new IllegalStateException("next must be called before remove.");
+				last.remove();
+				size--;
+				// A key that moved back into the removed slot hasn't been returned yet.
+				if (last != current && last.hasNext) {
+					current = last;
+					segmentIndex = lastIndex;
+				}
+				last = null;
+			}
+		};
+	}
+
+	/** A MerrySet that places keys using the hash bits after the bits used to pick the segment. */
+	static class Segment<T> extends MerrySet<T> {
+		final int segmentBits;
+
+		Segment (int initialCapacity, float loadFactor, int segmentBits) {
+			super(initialCapacity, loadFactor);
+			this.segmentBits = segmentBits;
+		}
+
+		protected int place (T item) {
+			return (int)(item.hashCode() * 0x9E3779B97F4A7C15L << segmentBits >>> shift);
+		}
+	}
+}
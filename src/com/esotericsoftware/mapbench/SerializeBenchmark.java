@@ -0,0 +1,172 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Saves a MerrySet of distinct {@link SyntheticCorpus} words to a temporary file and restores it:
+ * <ul>
+ * <li>Serializer: {@link MerrySetSerializer} writes the table layout and restoring fills the table without hashing.
+ * <li>JavaSerialization: ObjectOutputStream writes the keys as a String[], restoring adds them to a new set.
+ * <li>Rebuild: DataOutputStream writes the keys as a list with writeUTF, restoring adds them to a new set.
+ * </ul>
+ * Restored sets are presized for the keys, so only the hashing and probing differ from the serializer. */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(jvmArgsAppend = "-Xmx3g")
+public class SerializeBenchmark {
+	@Benchmark
+	public Object Serializer (SerializerState state) throws Exception {
+		return state.run();
+	}
+
+	@Benchmark
+	public Object JavaSerialization (JavaSerializationState state) throws Exception {
+		return state.run();
+	}
+
+	@Benchmark
+	public Object Rebuild (RebuildState state) throws Exception {
+		return state.run();
+	}
+
+	static public enum Op {
+		save, restore
+	}
+
+	@State(Scope.Thread)
+	static public abstract class SerializeState {
+		@Param({"100000", "1000000", "10000000"}) public int size;
+		@Param public Op op;
+
+		public MerrySet<String> set;
+		public Path file;
+
+		@Setup(Level.Trial)
+		public void setup () throws Exception {
+			SyntheticCorpus corpus = new SyntheticCorpus(0, SyntheticCorpus.MAX_VOCABULARY, SyntheticCorpus.DEFAULT_EXPONENT);
+			set = new MerrySet(size);
+			for (int i = 0; i < size; i++)
+				set.add(corpus.word(i + 1));
+			file = Files.createTempFile("mapbench", ".bin");
+			if (op == Op.restore) save();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown () throws IOException {
+			Files.deleteIfExists(file);
+		}
+
+		Object run () throws Exception {
+			long allocated = AllocationProfiler.start();
+			Object result = set;
+			switch (op) {
+			case save:
+				save();
+				break;
+			case restore:
+				result = restore();
+				break;
+			}
+			AllocationProfiler.stop(allocated);
+			return result;
+		}
+
+		abstract void save () throws Exception;
+
+		abstract MerrySet<String> restore () throws Exception;
+	}
+
+	@State(Scope.Thread)
+	static public class SerializerState extends SerializeState {
+		public final MerrySetSerializer<String> serializer = new MerrySetSerializer(new MerrySetSerializer.StringCodec());
+
+		void save () throws IOException {
+			serializer.write(set, file);
+		}
+
+		MerrySet<String> restore () throws IOException {
+			return serializer.read(file);
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class JavaSerializationState extends SerializeState {
+		void save () throws IOException {
+			try (ObjectOutputStream output = new ObjectOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), MerrySetSerializer.BUFFER_SIZE))) {
+				output.writeObject(new MerrySet.ObjectSetIterator<String>(set).toArray().toArray(String.class));
+			}
+		}
+
+		MerrySet<String> restore () throws Exception {
+			try (ObjectInputStream input = new ObjectInputStream(
+				new BufferedInputStream(Files.newInputStream(file), MerrySetSerializer.BUFFER_SIZE))) {
+				String[] keys = (String[])input.readObject();
+				MerrySet<String> set = new MerrySet(keys.length);
+				for (int i = 0, n = keys.length; i < n; i++)
+					set.add(keys[i]);
+				return set;
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	static public class RebuildState extends SerializeState {
+		void save () throws IOException {
+			try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), MerrySetSerializer.BUFFER_SIZE))) {
+				output.writeInt(set.size);
+				for (String key : new MerrySet.ObjectSetIterator<String>(set))
+					output.writeUTF(key);
+			}
+		}
+
+		MerrySet<String> restore () throws IOException {
+			try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file), MerrySetSerializer.BUFFER_SIZE))) {
+				int size = input.readInt();
+				MerrySet<String> set = new MerrySet(size);
+				for (int i = 0; i < size; i++)
+					set.add(input.readUTF());
+				return set;
+			}
+		}
+	}
+}
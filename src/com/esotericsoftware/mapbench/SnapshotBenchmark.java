@@ -0,0 +1,187 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Sets that readers use without locking while a writer publishes changes: {@link SnapshotMerrySet}, CopyOnWriteArraySet and a
+ * MerrySet that is copied with the {@link MerrySet#MerrySet(MerrySet)} constructor for every write and published through a
+ * volatile field. Each implementation is a group of {@link #READERS} reader threads and one writer thread sharing one set, so the
+ * readers' volatile reads and the chunks shared between snapshots are measured while the writer publishes. A read is one
+ * contains, half of them misses. A write removes and adds back a key, publishing two versions.
+ * <p>
+ * JMH reports the group and, as secondary results, each method, eg "Snapshot:SnapshotContains" is the time per read and
+ * "Snapshot:SnapshotUpdate" the time per update. Run it without -t, which would make groups of more than one writer. Use -tg to
+ * change the number of readers, eg: -tg 7,1 */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotBenchmark {
+	static public final int READERS = 3, LOOKUPS = 1 << 16, UPDATES = 1 << 10;
+
+	@Benchmark
+	@Group("Snapshot")
+	@GroupThreads(READERS)
+	public boolean SnapshotContains (SnapshotState state, Cursor cursor) {
+		return state.set.contains(state.lookups[cursor.next() & LOOKUPS - 1]);
+	}
+
+	@Benchmark
+	@Group("Snapshot")
+	@GroupThreads(1)
+	public Object SnapshotUpdate (SnapshotState state, Cursor cursor) {
+		String key = state.updates[cursor.next() & UPDATES - 1];
+		state.set.remove(key);
+		state.set.add(key);
+		return state.set;
+	}
+
+	@Benchmark
+	@Group("CopyOnWriteArraySet")
+	@GroupThreads(READERS)
+	public boolean CopyOnWriteArraySetContains (CopyOnWriteState state, Cursor cursor) {
+		return state.set.contains(state.lookups[cursor.next() & LOOKUPS - 1]);
+	}
+
+	@Benchmark
+	@Group("CopyOnWriteArraySet")
+	@GroupThreads(1)
+	public Object CopyOnWriteArraySetUpdate (CopyOnWriteState state, Cursor cursor) {
+		String key = state.updates[cursor.next() & UPDATES - 1];
+		state.set.remove(key);
+		state.set.add(key);
+		return state.set;
+	}
+
+	@Benchmark
+	@Group("MerrySet")
+	@GroupThreads(READERS)
+	public boolean MerrySetContains (MerrySetState state, Cursor cursor) {
+		return state.set.contains(state.lookups[cursor.next() & LOOKUPS - 1]);
+	}
+
+	@Benchmark
+	@Group("MerrySet")
+	@GroupThreads(1)
+	public Object MerrySetUpdate (MerrySetState state, Cursor cursor) {
+		String key = state.updates[cursor.next() & UPDATES - 1];
+		state.remove(key);
+		state.add(key);
+		return state.set;
+	}
+
+	/** The index of the next lookup or update for a thread. */
+	@State(Scope.Thread)
+	static public class Cursor {
+		int index;
+
+		int next () {
+			return index++;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	static public abstract class PublishState {
+		@Param({"16", "256", "4096", "65536"}) public int size;
+
+		public String[] lookups, updates;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			SyntheticCorpus corpus = new SyntheticCorpus(0);
+			String[] keys = new String[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = corpus.word(i + 1);
+				keys[i].hashCode();
+			}
+			addAll(keys);
+
+			Random random = new Random(1234);
+			lookups = new String[LOOKUPS];
+			for (int i = 0; i < LOOKUPS; i++) {
+				lookups[i] = random.nextBoolean() ? keys[random.nextInt(size)] : corpus.word(size + 1 + i);
+				lookups[i].hashCode();
+			}
+			updates = new String[UPDATES];
+			for (int i = 0; i < UPDATES; i++)
+				updates[i] = keys[random.nextInt(size)];
+		}
+
+		abstract void addAll (String[] keys);
+	}
+
+	@State(Scope.Benchmark)
+	static public class SnapshotState extends PublishState {
+		public final SnapshotMerrySet<String> set = new SnapshotMerrySet();
+
+		void addAll (String[] keys) {
+			set.addAll(keys);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	static public class CopyOnWriteState extends PublishState {
+		public final CopyOnWriteArraySet<String> set = new CopyOnWriteArraySet();
+
+		void addAll (String[] keys) {
+			for (String key : keys)
+				set.add(key);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	static public class MerrySetState extends PublishState {
+		public volatile MerrySet<String> set = new MerrySet();
+
+		void addAll (String[] keys) {
+			MerrySet<String> copy = new MerrySet(set);
+			copy.addAll(keys);
+			set = copy;
+		}
+
+		synchronized void add (String key) {
+			if (set.contains(key)) return;
+			MerrySet<String> copy = new MerrySet(set);
+			copy.add(key);
+			set = copy;
+		}
+
+		synchronized void remove (String key) {
+			if (!set.contains(key)) return;
+			MerrySet<String> copy = new MerrySet(set);
+			copy.remove(key);
+			set = copy;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A set for many readers and few writes, using the {@link MerrySet} design. Readers get an immutable {@link Snapshot} with a
+ * single volatile read and never lock. Each write publishes a new snapshot that shares structure with the previous one: the table
+ * is split into chunks of {@link #CHUNK_SIZE} slots and only the chunks a write changes are copied, so a write costs O(capacity /
+ * CHUNK_SIZE) for the chunk references plus a chunk copy, rather than O(capacity) to copy the whole table. Old snapshots are
+ * collected by the GC once no reader references them.
+ * <p>
+ * Writes are synchronized, so there can be multiple writers, but they are intended to be infrequent. {@link #addAll(Object...)}
+ * and {@link #removeAll(Object...)} publish a single snapshot for many keys. Growing the table copies every chunk. Null keys are
+ * not allowed. Keys are placed with Fibonacci hashing, as {@link MerrySet#place(Object)} does, which can't be overridden. */
+public class SnapshotMerrySet<T> implements Iterable<T> {
+	static public final int CHUNK_SHIFT = 9, CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	final float loadFactor;
+	final int initialCapacity;
+	private volatile Snapshot<T> snapshot;
+
+	// The write in progress, guarded by this. Chunks that are the same instance as in base are shared and must be copied before
+	// they are changed. After a resize, base is null and every chunk is new.
+	private Snapshot<T> base;
+	private T[][] chunks;
+	private int size, shift, mask, threshold;
+
+	/** Creates a new set with an initial capacity of 51 and a load factor of 0.8. */
+	public SnapshotMerrySet () {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new set with the specified initial capacity and load factor. This set will hold initialCapacity items before
+	 * growing the backing table. */
+	public SnapshotMerrySet (int initialCapacity, float loadFactor) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		if (loadFactor <= 0f || loadFactor >= 1f)
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		initialCapacity = MathUtils.nextPowerOfTwo((int)Math.ceil(Math.max(1, initialCapacity) / loadFactor));
+		if (initialCapacity > 1 << 30) throw new IllegalArgumentException("initialCapacity is too large: " + initialCapacity);
+
+		this.loadFactor = loadFactor;
+		this.initialCapacity = initialCapacity;
+		snapshot = new Snapshot(newChunks(initialCapacity), 0, initialCapacity - 1);
+	}
+
+	/** Returns the current snapshot. It never changes, later writes publish a new snapshot. */
+	public Snapshot<T> snapshot () {
+		return snapshot;
+	}
+
+	/** Returns true if the current snapshot contains the key. */
+	public boolean contains (T key) {
+		return snapshot.contains(key);
+	}
+
+	/** Returns the key in the current snapshot, or null. */
+	public T get (T key) {
+		return snapshot.get(key);
+	}
+
+	/** Returns the size of the current snapshot. */
+	public int size () {
+		return snapshot.size;
+	}
+
+	/** Returns an iterator for the current snapshot. */
+	public Iterator<T> iterator () {
+		return snapshot.iterator();
+	}
+
+	/** Returns true if the key was not already in the set, after publishing a snapshot containing it. */
+	public synchronized boolean add (T key) {
+		if (snapshot.contains(key)) return false;
+		begin();
+		addKey(key);
+		publish();
+		return true;
+	}
+
+	/** Publishes a single snapshot containing all the keys. Returns true if any key was added. */
+	public synchronized boolean addAll (T... keys) {
+		begin();
+		int oldSize = size;
+		for (int i = 0, n = keys.length; i < n; i++)
+			addKey(keys[i]);
+		if (size == oldSize) {
+			end();
+			return false;
+		}
+		publish();
+		return true;
+	}
+
+	/** Returns true if the key was removed, after publishing a snapshot without it. */
+	public synchronized boolean remove (T key) {
+		if (!snapshot.contains(key)) return false;
+		begin();
+		removeKey(key);
+		publish();
+		return true;
+	}
+
+	/** Publishes a single snapshot without any of the keys. Returns true if any key was removed. */
+	public synchronized boolean removeAll (T... keys) {
+		begin();
+		int oldSize = size;
+		for (int i = 0, n = keys.length; i < n; i++)
+			removeKey(keys[i]);
+		if (size == oldSize) {
+			end();
+			return false;
+		}
+		publish();
+		return true;
+	}
+
+	/** Publishes an empty snapshot with the initial capacity. */
+	public synchronized void clear () {
+		if (snapshot.size == 0 && snapshot.mask == initialCapacity - 1) return;
+		snapshot = new Snapshot(newChunks(initialCapacity), 0, initialCapacity - 1);
+	}
+
+	private void begin () {
+		Snapshot<T> base = snapshot;
+		this.base = base;
+		chunks = base.chunks.clone();
+		size = base.size;
+		shift = base.shift;
+		mask = base.mask;
+		threshold = (int)((mask + 1) * loadFactor);
+	}
+
+	private void publish () {
+		snapshot = new Snapshot(chunks, size, mask);
+		end();
+	}
+
+	private void end () {
+		base = null;
+		chunks = null;
+	}
+
+	/** Returns the chunk with the index for writing, copying it first if it is shared with the published snapshot. */
+	private T[] writable (int chunkIndex) {
+		T[] chunk = chunks[chunkIndex];
+		if (base != null && chunk == base.chunks[chunkIndex]) chunks[chunkIndex] = chunk = chunk.clone();
+		return chunk;
+	}
+
+	private void addKey (T key) {
+		int i = locateKey(chunks, shift, mask, key);
+		if (i >= 0) return; // Existing key was found.
+		i = -(i + 1); // Empty space was found.
+		writable(i >>> CHUNK_SHIFT)[i & CHUNK_MASK] = key;
+		if (++size >= threshold) resize(mask + 1 << 1);
+	}
+
+	private void removeKey (T key) {
+		T[][] chunks = this.chunks;
+		int mask = this.mask, shift = this.shift;
+		int i = locateKey(chunks, shift, mask, key);
+		if (i < 0) return;
+		int next = i + 1 & mask;
+		while ((key = chunks[next >>> CHUNK_SHIFT][next & CHUNK_MASK]) != null) {
+			// Move the key into the gap unless its place is after the gap, which would make it unreachable.
+			if ((next - place(key, shift) & mask) >= (next - i & mask)) {
+				writable(i >>> CHUNK_SHIFT)[i & CHUNK_MASK] = key;
+				i = next;
+			}
+			next = next + 1 & mask;
+		}
+		writable(i >>> CHUNK_SHIFT)[i & CHUNK_MASK] = null;
+		size--;
+	}
+
+	private void resize (int newSize) {
+		T[][] oldChunks = chunks;
+		threshold = (int)(newSize * loadFactor);
+		mask = newSize - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		T[][] chunks = newChunks(newSize);
+		this.chunks = chunks;
+		base = null; // Every chunk is new.
+
+		int mask = this.mask, shift = this.shift;
+		for (T[] chunk : oldChunks) {
+			for (int ii = 0, nn = chunk.length; ii < nn; ii++) {
+				T key = chunk[ii];
+				if (key == null) continue;
+				for (int i = place(key, shift);; i = i + 1 & mask) {
+					T[] c = chunks[i >>> CHUNK_SHIFT];
+					if (c[i & CHUNK_MASK] == null) {
+						c[i & CHUNK_MASK] = key;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	static private <T> T[][] newChunks (int capacity) {
+		int chunkSize = Math.min(capacity, CHUNK_SIZE);
+		T[][] chunks = (T[][])new Object[capacity / chunkSize][];
+		for (int i = 0, n = chunks.length; i < n; i++)
+			chunks[i] = (T[])new Object[chunkSize];
+		return chunks;
+	}
+
+	static int place (Object item, int shift) {
+		return (int)(item.hashCode() * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Returns the index of the key if already present, else -(index + 1) for the next empty index. */
+	static <T> int locateKey (T[][] chunks, int shift, int mask, T key) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		for (int i = place(key, shift);; i = i + 1 & mask) {
+			T other = chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+			if (other == null) return -(i + 1); // Empty space is available.
+			if (other.equals(key)) return i; // Same key was found.
+		}
+	}
+
+	public String toString () {
+		return snapshot.toString();
+	}
+
+	/** An immutable version of a {@link SnapshotMerrySet}. Its chunks may be shared with other snapshots but are never changed. */
+	static public final class Snapshot<T> implements Iterable<T> {
+		public final int size;
+
+		final T[][] chunks;
+		final int shift, mask;
+
+		Snapshot (T[][] chunks, int size, int mask) {
+			this.chunks = chunks;
+			this.size = size;
+			this.mask = mask;
+			shift = Long.numberOfLeadingZeros(mask);
+		}
+
+		public boolean contains (T key) {
+			return locateKey(chunks, shift, mask, key) >= 0;
+		}
+
+		public T get (T key) {
+			int i = locateKey(chunks, shift, mask, key);
+			return i < 0 ? null : chunks[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+		}
+
+		public boolean isEmpty () {
+			return size == 0;
+		}
+
+		/** Returns a new iterator for the keys. Remove is not supported. */
+		public Iterator<T> iterator () {
+			return new Iterator<T>() {
+				int chunkIndex, index = -1;
+				T next = findNext();
+
+				private T findNext () {
+					T[][] chunks = Snapshot.this.chunks;
+					for (int n = chunks.length; chunkIndex < n; chunkIndex++, index = -1) {
+						T[] chunk = chunks[chunkIndex];
+						while (++index < chunk.length)
+							if (chunk[index] != null) return chunk[index];
+					}
+					return null;
+				}
+
+				public boolean hasNext () {
+					return next != null;
+				}
+
+				public T next () {
+					T key = next;
+					if (key == null) throw new NoSuchElementException();
+					next = findNext();
+					return key;
+				}
+			};
+		}
+
+		public String toString () {
+			if (size == 0) return "{}";
+			java.lang.StringBuilder buffer = new java.lang.StringBuilder(32);
+			buffer.append('{');
+			for (T key : this) {
+				if (buffer.length() > 1) buffer.append(", ");
+				buffer.append(key);
+			}
+			buffer.append('}');
+			return buffer.toString();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/** Generates a deterministic stream of words with a word frequency and length distribution similar to English Wikipedia, so
+ * large benchmarks can run without downloading a corpus.
+ * <p>
+ * Word ranks are sampled from a {@link Zipf} distribution with an exponent near 1. Each rank always maps to the same word, and
+ * different ranks always map to different words. Word lengths follow the length distribution of distinct English words, with
+ * frequent words kept short the way they are in natural language. */
+public class SyntheticCorpus {
+	static public final long DEFAULT_VOCABULARY = 1 << 23;
+	static public final double DEFAULT_EXPONENT = 1.07;
+
+	/** The largest vocabulary where all ranks map to different words. */
+	static public final long MAX_VOCABULARY = 308915776; // 26^6
+
+	static private final byte[] letters = "etaoinshrdlcumwfgypbvkjxqz".getBytes(StandardCharsets.US_ASCII);
+	static private final long scramble = 165580141; // Fibonacci number coprime to 26, scrambles letters within a length.
+
+	/** Relative frequencies of the lengths 1 to 20 among distinct English words. */
+	static private final double[] lengthWeights = {0.1, 0.6, 2.6, 5.2, 8.5, 11.5, 13.0, 13.1, 11.9, 9.8, 7.4, 5.2, 3.6, 2.3,
+		1.4, 0.9, 0.5, 0.3, 0.2, 0.1};
+	static private final double[] lengthCdf = new double[lengthWeights.length];
+	static {
+		double total = 0;
+		for (double weight : lengthWeights)
+			total += weight;
+		double sum = 0;
+		for (int i = 0; i < lengthWeights.length; i++) {
+			sum += lengthWeights[i];
+			lengthCdf[i] = sum / total;
+		}
+	}
+
+	private final long seed;
+	private final Zipf zipf;
+	private final Random random;
+	private final byte[] bytes = new byte[lengthWeights.length];
+
+	public SyntheticCorpus (long seed) {
+		this(seed, DEFAULT_VOCABULARY, DEFAULT_EXPONENT);
+	}
+
+	/** @param vocabulary The number of distinct words that can be generated, <= {@link #MAX_VOCABULARY}.
+	 * @param exponent The Zipf exponent, larger values make frequent words more frequent. */
+	public SyntheticCorpus (long seed, long vocabulary, double exponent) {
+		if (vocabulary > MAX_VOCABULARY) throw new IllegalArgumentException("vocabulary is too large: " + vocabulary);
+		this.seed = seed;
+		zipf = new Zipf(vocabulary, exponent);
+		random = new Random(seed);
+	}
+
+	/** Returns the next word. A new String is returned each time, like when a corpus is tokenized. */
+	public String next () {
+		int length = encode(zipf.next(random));
+		String word = new String(bytes, 0, length, StandardCharsets.US_ASCII);
+		word.hashCode(); // Precompute hashcode
+		return word;
+	}
+
+	/** Returns the word for the rank, where rank 1 is the most frequent word. */
+	public String word (long rank) {
+		if (rank < 1 || rank > zipf.getN()) throw new IllegalArgumentException("rank must be >= 1 and <= vocabulary: " + rank);
+		return new String(bytes, 0, encode(rank), StandardCharsets.US_ASCII);
+	}
+
+	/** Writes the word for the rank to {@link #bytes} and returns its length. */
+	private int encode (long rank) {
+		long index = rank - 1, hash = mix(seed ^ rank * 0x9E3779B97F4A7C15L);
+
+		// Sample a length, then keep frequent words short and make sure there are enough letters to encode the index.
+		double u = (hash >>> 11) * 0x1.0p-53;
+		int length = 1;
+		while (length < lengthCdf.length && u > lengthCdf[length - 1])
+			length++;
+		length = Math.min(length, 3 + (int)Math.log10(rank));
+		int digits = 1;
+		for (long n = index / 26; n > 0; n /= 26)
+			digits++;
+		length = Math.max(length, digits);
+
+		// The first letters encode the index, scrambled so similar ranks don't look alike. For a given length this is a bijection,
+		// so different ranks never produce the same word. Any remaining letters are derived from the hash.
+		int encoded = Math.min(length, 6);
+		long space = 1;
+		for (int i = 0; i < encoded; i++)
+			space *= 26;
+		long value = index * scramble % space;
+		byte[] bytes = this.bytes;
+		for (int i = 0; i < encoded; i++, value /= 26)
+			bytes[i] = letters[(int)(value % 26)];
+		for (int i = encoded; i < length; i++) {
+			hash = mix(hash);
+			bytes[i] = letters[(int)((hash >>> 33) % 26)];
+		}
+		return length;
+	}
+
+	/** Writes the words separated by spaces, with a line break after every 16 words. The stream is not closed. */
+	public void write (OutputStream output, long words) throws IOException {
+		byte[] bytes = this.bytes;
+		for (long i = 1; i <= words; i++) {
+			output.write(bytes, 0, encode(zipf.next(random)));
+			output.write((i & 15) == 0 ? '\n' : ' ');
+		}
+	}
+
+	/** The SplitMix64 finalizer. */
+	static private long mix (long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/** Writes a gzipped corpus that can be used in place of {@link Wordlist#HUGE_FILENAME}.
+	 * <p>
+	 * Usage: SyntheticCorpus [words] [file] [seed] */
+	static public void main (String[] args) throws Exception {
+		long words = args.length > 0 ? Long.parseLong(args[0]) : 100000000;
+		String file = args.length > 1 ? args[1] : Wordlist.HUGE_FILENAME;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		long start = System.nanoTime();
+		try (OutputStream output = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 1 << 16), 1 << 16)) {
+			new SyntheticCorpus(seed).write(output, words);
+		}
+		System.out.println("Wrote " + words + " words to " + file + " in " + (System.nanoTime() - start) / 1000000 + " ms.");
+	}
+}
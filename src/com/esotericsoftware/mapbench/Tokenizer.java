@@ -0,0 +1,140 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/** Splits UTF-8 text into words by scanning the bytes directly, without regular expressions and without creating a String per
+ * line. A word is a run of ASCII letters, digits, '_' or '-', or any non-ASCII byte, which keeps multibyte UTF-8 letters inside
+ * words. This matches the {@code [\w-]+} pattern for most text, except that non-ASCII punctuation is also treated as a word
+ * character. */
+public class Tokenizer {
+	static private final boolean[] wordBytes = new boolean[256];
+	static {
+		for (int b = 'a'; b <= 'z'; b++)
+			wordBytes[b] = true;
+		for (int b = 'A'; b <= 'Z'; b++)
+			wordBytes[b] = true;
+		for (int b = '0'; b <= '9'; b++)
+			wordBytes[b] = true;
+		for (int b = 0x80; b <= 0xFF; b++)
+			wordBytes[b] = true;
+		wordBytes['_'] = true;
+		wordBytes['-'] = true;
+	}
+
+	private byte[] buffer;
+
+	/** Creates a tokenizer with a 64KB buffer. */
+	public Tokenizer () {
+		this(1 << 16);
+	}
+
+	/** @param bufferSize The initial buffer size. The buffer grows if a single word is larger. */
+	public Tokenizer (int bufferSize) {
+		if (bufferSize < 1) throw new IllegalArgumentException("bufferSize must be > 0: " + bufferSize);
+		buffer = new byte[bufferSize];
+	}
+
+	/** Reads and tokenizes the stream until it ends or the listener returns false. The stream is not closed.
+	 * @return false if the listener stopped tokenizing. */
+	public boolean tokenize (InputStream input, Listener listener) throws IOException {
+		byte[] buffer = this.buffer;
+		boolean[] wordBytes = Tokenizer.wordBytes;
+		int start = 0, end = 0; // Bytes [start,end) are an incomplete word carried over from the last read.
+		while (true) {
+			if (start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, end - start);
+				end -= start;
+				start = 0;
+			} else if (end == buffer.length) {
+				byte[] newBuffer = new byte[buffer.length << 1];
+				System.arraycopy(buffer, 0, newBuffer, 0, end);
+				this.buffer = buffer = newBuffer;
+			}
+			int count = input.read(buffer, end, buffer.length - end);
+			if (count == -1) return end == 0 || listener.word(buffer, 0, end);
+			int i = end;
+			end += count;
+			boolean inWord = i > 0;
+			for (; i < end; i++) {
+				if (wordBytes[buffer[i] & 0xFF]) {
+					if (!inWord) {
+						start = i;
+						inWord = true;
+					}
+				} else if (inWord) {
+					if (!listener.word(buffer, start, i - start)) return false;
+					inWord = false;
+				}
+			}
+			if (!inWord) start = end; // Nothing to carry over.
+		}
+	}
+
+	/** Tokenizes the bytes. A word that ends at the end of the range is reported, so the range should end on a word boundary.
+	 * @return false if the listener stopped tokenizing. */
+	static public boolean tokenize (byte[] bytes, int offset, int length, Listener listener) {
+		boolean[] wordBytes = Tokenizer.wordBytes;
+		int start = -1;
+		for (int i = offset, n = offset + length; i < n; i++) {
+			if (wordBytes[bytes[i] & 0xFF]) {
+				if (start == -1) start = i;
+			} else if (start != -1) {
+				if (!listener.word(bytes, start, i - start)) return false;
+				start = -1;
+			}
+		}
+		return start == -1 || listener.word(bytes, start, offset + length - start);
+	}
+
+	/** Returns true if the byte can be part of a word. */
+	static public boolean isWordByte (byte b) {
+		return wordBytes[b & 0xFF];
+	}
+
+	/** Passes each word in the stream as a String to the consumer, until the stream ends or the limit is reached. This can feed
+	 * keys straight into a set, eg {@code Tokenizer.addWords(input, size, set::add)}. Each word's hashcode is precomputed.
+	 * @return The number of words passed to the consumer. */
+	static public int addWords (InputStream input, final int limit, final Consumer<String> consumer) throws IOException {
+		final int[] count = new int[1];
+		if (limit > 0) {
+			new Tokenizer().tokenize(input, new Listener() {
+				public boolean word (byte[] bytes, int offset, int length) {
+					String word = new String(bytes, offset, length, StandardCharsets.UTF_8);
+					word.hashCode(); // Precompute hashcode
+					consumer.accept(word);
+					return ++count[0] < limit;
+				}
+			});
+		}
+		return count[0];
+	}
+
+	/** Receives each word as a range of bytes. The bytes are only valid during the call. */
+	static public interface Listener {
+		/** @return false to stop tokenizing. */
+		public boolean word (byte[] bytes, int offset, int length);
+	}
+}
@@ -0,0 +1,93 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.HashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/** Counts the frequency of every word in {@link Wordlist#BIBLE_FILENAME}, about 790k words with 13k distinct, starting from an
+ * empty map each invocation. MerryGetPut counts with a get then a put, two probes per word, to show what the single probe
+ * {@link MerryObjectIntMap#getAndIncrement(Object, int, int)} saves. */
+@BenchmarkMode(Mode.SingleShotTime)
+public class WordCountBenchmark {
+	@Benchmark
+	public Object Merry (WordsState state) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		MerryObjectIntMap<String> map = new MerryObjectIntMap();
+		for (int i = 0, n = words.length; i < n; i++)
+			map.getAndIncrement(words[i], 0, 1);
+		AllocationProfiler.stop(allocated);
+		return map;
+	}
+
+	@Benchmark
+	public Object MerryGetPut (WordsState state) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		MerryObjectIntMap<String> map = new MerryObjectIntMap();
+		for (int i = 0, n = words.length; i < n; i++)
+			map.put(words[i], map.getOrDefault(words[i], 0) + 1);
+		AllocationProfiler.stop(allocated);
+		return map;
+	}
+
+	@Benchmark
+	public Object ObjectIntMap (WordsState state) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		ObjectIntMap<String> map = new ObjectIntMap();
+		for (int i = 0, n = words.length; i < n; i++)
+			map.getAndIncrement(words[i], 0, 1);
+		AllocationProfiler.stop(allocated);
+		return map;
+	}
+
+	@Benchmark
+	public Object HashMap (WordsState state) {
+		String[] words = state.words;
+		long allocated = AllocationProfiler.start();
+		HashMap<String, Integer> map = new HashMap();
+		for (int i = 0, n = words.length; i < n; i++)
+			map.merge(words[i], 1, Integer::sum);
+		AllocationProfiler.stop(allocated);
+		return map;
+	}
+
+	@State(Scope.Thread)
+	static public class WordsState {
+		public String[] words;
+
+		@Setup(Level.Trial)
+		public void setup () {
+			words = Wordlist.loadBible();
+		}
+	}
+}
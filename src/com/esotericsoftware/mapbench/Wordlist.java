@@ -1,23 +1,35 @@
 
 package com.esotericsoftware.mapbench;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 
 public class Wordlist {
 
@@ -26,40 +38,99 @@ public class Wordlist {
 	/** File name of our input data. */
 	public static final String HUGE_FILENAME = "data/enwiki-100m.txt.gz";
 	public static final String FILENAME = "data/word_list.txt.gz";
+	/** The text of the bible as words separated by whitespace, for word counting. */
+	public static final String BIBLE_FILENAME = "data/bible_only_words.txt.gz";
 
-	public static List<String> loadWiki (int size, int seed) throws IOException {
+	/** Directory for the binary word caches written by {@link #loadWords(int, int)}. */
+	public static final String CACHE_DIRECTORY = "data/cache";
+	static private final int CACHE_MAGIC = 0x4d425743, CACHE_VERSION = 1;
 
-		// Load the Wikipedia word data.
-		try (InputStream is = ClassLoader.getSystemResourceAsStream(HUGE_FILENAME);
-			InputStream gi = new GZIPInputStream(is);
-			Reader r = new InputStreamReader(gi);
-			BufferedReader reader = new BufferedReader(r)) {
+	/** Returns {@code size} words from the Wikipedia corpus. If seed is not -1, the words are a random sample of the first
+	 * {@code size * 2} words, in random order. See {@link #streamWiki(int, Consumer)}. */
+	public static List<String> loadWiki (final int size, int seed) throws IOException {
+		final ArrayList<String> words = new ArrayList<>(size);
+		if (seed == DEFAULT_SEED)
+			streamWiki(size, words::add);
+		else {
+			// Reservoir sample so only size words are buffered.
+			final Random random = new Random(seed);
+			streamWiki(size << 1, new Consumer<String>() {
+				int count;
 
-			// Always read twice as much the size
-			final int stop = size << 1;
-			List<String> words = new ArrayList<>(stop);
-
-			String line;
-			Matcher m = Pattern.compile("[\\w--]+", Pattern.UNICODE_CHARACTER_CLASS).matcher("");
-			while ((line = reader.readLine()) != null && words.size() < stop) {
-				m.reset(line);
-				while (m.find()) {
-					String word = m.group();
-					word.hashCode(); // Precompute hashcode
-					words.add(word);
+				public void accept (String word) {
+					int i = count++;
+					if (i < size)
+						words.add(word);
+					else {
+						int j = random.nextInt(i + 1);
+						if (j < size) words.set(j, word);
+					}
 				}
-			}
+			});
+			Collections.shuffle(words, random);
+		}
+		return words;
+	}
 
-			if (seed != DEFAULT_SEED) {
-				Collections.shuffle(words, new Random(seed));
+	/** Passes the first {@code size} words from the Wikipedia corpus to the consumer as they are read, so keys can be added
+	 * straight into a set without buffering, eg {@code streamWiki(size, set::add)}. If {@link #HUGE_FILENAME} doesn't exist,
+	 * words from a {@link SyntheticCorpus} are used instead.
+	 * @return The number of words passed to the consumer, which is less than size if the corpus is too small. */
+	public static int streamWiki (int size, Consumer<String> consumer) throws IOException {
+		File file = new File(HUGE_FILENAME);
+		if (!file.exists()) {
+			SyntheticCorpus corpus = new SyntheticCorpus(0);
+			for (int i = 0; i < size; i++)
+				consumer.accept(corpus.next());
+			return size;
+		}
+		try (InputStream input = new GZIPInputStream(new FileInputStream(file), 1 << 16)) {
+			return Tokenizer.addWords(input, size, consumer);
+		}
+	}
+
+	/** Returns every word in {@link #BIBLE_FILENAME}, in order. Each is a new String with its hashcode precomputed, as if the
+	 * stream were tokenized while counting. */
+	public static String[] loadBible () {
+		try (InputStream input = new GZIPInputStream(new FileInputStream(BIBLE_FILENAME), 1 << 16)) {
+			final ArrayList<String> words = new ArrayList<>(1 << 20);
+			Tokenizer.addWords(input, Integer.MAX_VALUE, words::add);
+			return words.toArray(new String[words.size()]);
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/** Returns {@code size} words from the word list, expanded with repeats and shuffled. The result for each size and seed is
+	 * cached in {@link #CACHE_DIRECTORY} so later trials memory-map a small binary file instead of decompressing and shuffling
+	 * the whole word list again. */
+	public static String[] loadWords (int size, int seed) {
+		try {
+			File source = new File(FILENAME);
+			File cacheFile = new File(CACHE_DIRECTORY, "words-" + size + "_" + seed + ".bin");
+			String[] words = readCache(cacheFile, source, size, seed);
+			if (words == null) {
+				int[] indices = new int[size];
+				String[] unique = expandWords(size, indices);
+				try {
+					writeCache(cacheFile, source, size, seed, unique, indices);
+				} catch (IOException ex) {
+					// Eg on Windows the old cache can't be replaced while another JVM has it mapped. The words are used anyway.
+					System.out.println("Unable to write word cache: " + cacheFile + " (" + ex + ")");
+				}
+				words = new String[size];
+				for (int i = 0; i < size; i++)
+					words[i] = unique[indices[i]];
 			}
-			words.subList(size, words.size()).clear(); // Truncate
 			return words;
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
 		}
 	}
 
-	public static String[] loadWords (int size, int seed) {
-		// Load the word list
+	/** Reads the word list and fills {@code indices} with the first indices.length entries of the expanded, shuffled list.
+	 * @return The unique words that the indices refer to. */
+	static private String[] expandWords (int size, int[] indices) throws IOException {
 		try (InputStream is = new FileInputStream(FILENAME);
 			InputStream gi = new GZIPInputStream(is);
 			Reader r = new InputStreamReader(gi);
@@ -67,7 +138,8 @@ public class Wordlist {
 
 			// Always read at least the word list in full
 			final int stop = 235971;
-			ArrayList<String> words = new ArrayList<>(stop);
+			ArrayList<String> lines = new ArrayList<>(stop);
+			IntArray expanded = new IntArray(stop * 4);
 
 			String line;
 			int len;
@@ -84,22 +156,114 @@ public class Wordlist {
 				}
 				len *= len;
 				repeats = (line.hashCode() & 0xFFF) * 0x0.00FFFp-10 * size / (len * len) + 1.5;
+				int index = lines.size();
+				lines.add(line);
 				for (int i = 0; i < repeats; i++) {
-					words.add(line);
+					expanded.add(index);
 				}
 			}
 
 //			if (seed != DEFAULT_SEED) {
 				final Random rng = new Random(1234);
-				final int n = words.size();
-				for (int i = n; i > 1; i--) {
-					Collections.swap(words, rng.nextInt(i), i - 1);
+				final int[] items = expanded.items;
+				for (int i = expanded.size; i > 1; i--) {
+					int j = rng.nextInt(i), temp = items[j];
+					items[j] = items[i - 1];
+					items[i - 1] = temp;
 				}
 //			}
-			words.subList(size, words.size()).clear(); // Truncate
-			return words.toArray(new String[words.size()]);
-		} catch (Exception ex) {
-			throw new RuntimeException(ex);
+			if (indices.length > expanded.size) throw new IndexOutOfBoundsException(
+				"size is larger than the expanded word list: " + indices.length + " > " + expanded.size);
+			System.arraycopy(items, 0, indices, 0, indices.length); // Truncate
+			return lines.toArray(new String[lines.size()]);
+		}
+	}
+
+	/** Returns the cached words, or null if the cache file doesn't exist, was written for a different word list, or is truncated
+	 * or corrupt, so it is rebuilt.
+	 * <p>
+	 * Repeated words are the same String instance and every hashcode is precomputed, the same as when the word list is read. */
+	static private String[] readCache (File cacheFile, File source, int size, int seed) throws IOException {
+		if (!cacheFile.exists()) return null;
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 36 || buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION
+				|| buffer.getLong() != source.length() || buffer.getLong() != source.lastModified() || buffer.getInt() != size
+				|| buffer.getInt() != seed) return null;
+
+			int uniqueCount = buffer.getInt();
+			if (uniqueCount < 0 || uniqueCount > size || uniqueCount * 2L + size * 4L > buffer.remaining()) return null;
+			String[] unique = new String[uniqueCount];
+			byte[] bytes = new byte[256];
+			for (int i = 0; i < uniqueCount; i++) {
+				if (buffer.remaining() < 2) return null;
+				int length = buffer.getShort() & 0xFFFF;
+				if (length > buffer.remaining()) return null;
+				if (length > bytes.length) bytes = new byte[length];
+				buffer.get(bytes, 0, length);
+				String word = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				word.hashCode(); // Precompute hashcode
+				unique[i] = word;
+			}
+
+			if (buffer.remaining() != size * 4L) return null;
+			int[] indices = new int[size];
+			buffer.asIntBuffer().get(indices);
+			String[] words = new String[size];
+			for (int i = 0; i < size; i++) {
+				int index = indices[i];
+				if (index < 0 || index >= uniqueCount) return null;
+				words[i] = unique[index];
+			}
+			return words;
+		}
+	}
+
+	/** Writes the words as a string arena: each unique word once as length-prefixed UTF-8, followed by an index per word. The
+	 * file is written to a temporary file first so concurrent benchmark threads never read a partial cache. */
+	static private void writeCache (File cacheFile, File source, int size, int seed, String[] unique, int[] indices)
+		throws IOException {
+		// Only keep the unique words that are referenced after truncating.
+		int[] remap = new int[unique.length];
+		Arrays.fill(remap, -1);
+		int[] cacheIndices = new int[indices.length];
+		ArrayList<String> cacheUnique = new ArrayList<>();
+		for (int i = 0, n = indices.length; i < n; i++) {
+			int index = indices[i];
+			if (remap[index] == -1) {
+				remap[index] = cacheUnique.size();
+				cacheUnique.add(unique[index]);
+			}
+			cacheIndices[i] = remap[index];
+		}
+
+		File directory = cacheFile.getParentFile();
+		directory.mkdirs();
+		File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+				output.writeInt(CACHE_MAGIC);
+				output.writeInt(CACHE_VERSION);
+				output.writeLong(source.length());
+				output.writeLong(source.lastModified());
+				output.writeInt(size);
+				output.writeInt(seed);
+				output.writeInt(cacheUnique.size());
+				for (String word : cacheUnique) {
+					byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+					output.writeShort(bytes.length);
+					output.write(bytes);
+				}
+				for (int index : cacheIndices)
+					output.writeInt(index);
+			}
+			try {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			tempFile.delete();
 		}
 	}
 
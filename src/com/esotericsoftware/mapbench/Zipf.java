@@ -0,0 +1,91 @@
+/* Copyright (c) 2020, Nathan Sweet
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following
+ * conditions are met:
+ * 
+ * - Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided with the distribution.
+ * - Neither the name of Esoteric Software nor the names of its contributors may be used to endorse or promote products derived
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING,
+ * BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT
+ * SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. */
+
+
+package com.esotericsoftware.mapbench;
+
+import java.util.Random;
+
+/** Samples ranks from 1 to n with a Zipf (power law) distribution, where rank k has probability proportional to 1 / k^exponent.
+ * Uses rejection-inversion sampling (Hörmann and Derflinger), which needs no tables, so n can be very large.
+ * <p>
+ * Natural language word frequencies follow this distribution with an exponent close to 1. */
+public class Zipf {
+	private final long n;
+	private final double exponent, hIntegralX1, hIntegralN, s;
+
+	public Zipf (long n, double exponent) {
+		if (n < 1) throw new IllegalArgumentException("n must be > 0: " + n);
+		if (exponent <= 0) throw new IllegalArgumentException("exponent must be > 0: " + exponent);
+		this.n = n;
+		this.exponent = exponent;
+		hIntegralX1 = hIntegral(1.5) - 1;
+		hIntegralN = hIntegral(n + 0.5);
+		s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+	}
+
+	/** Returns a rank >= 1 and <= n. */
+	public long next (Random random) {
+		while (true) {
+			double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+			double x = hIntegralInverse(u);
+			long k = (long)(x + 0.5);
+			if (k < 1)
+				k = 1;
+			else if (k > n) //
+				k = n;
+			if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) return k;
+		}
+	}
+
+	public long getN () {
+		return n;
+	}
+
+	public double getExponent () {
+		return exponent;
+	}
+
+	private double h (double x) {
+		return Math.exp(-exponent * Math.log(x));
+	}
+
+	private double hIntegral (double x) {
+		double logX = Math.log(x);
+		return helper2((1 - exponent) * logX) * logX;
+	}
+
+	private double hIntegralInverse (double x) {
+		double t = x * (1 - exponent);
+		if (t < -1) t = -1; // Limit to the domain of log1p, rounding errors can make t slightly less than -1.
+		return Math.exp(helper1(t) * x);
+	}
+
+	/** Returns log1p(x) / x, accurate near 0. */
+	static private double helper1 (double x) {
+		if (Math.abs(x) > 1e-8) return Math.log1p(x) / x;
+		return 1 - x * (0.5 - x * (1 / 3d - 0.25 * x));
+	}
+
+	/** Returns expm1(x) / x, accurate near 0. */
+	static private double helper2 (double x) {
+		if (Math.abs(x) > 1e-8) return Math.expm1(x) / x;
+		return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+	}
+}